@@ -0,0 +1,118 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.Json;
+import com.insight.utils.Util;
+import com.insight.utils.pojo.auth.TokenKey;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 请求的访问令牌, 每个请求只解析一次并保存在exchange属性中, 首次读取时才进行解码
+ */
+public final class AccessToken {
+    private static final String ATTRIBUTE = "accessToken";
+    private final String token;
+
+    /**
+     * 是否已解码
+     */
+    private volatile boolean decoded;
+
+    /**
+     * 解码后的令牌
+     */
+    private TokenKey tokenKey;
+
+    /**
+     * 是否已知无效, 未检查时为null
+     */
+    private volatile Boolean invalid;
+
+    /**
+     * 构造函数
+     *
+     * @param token 原始令牌字符串
+     */
+    private AccessToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * 获取请求的访问令牌, 不存在时从请求头Authorization创建
+     *
+     * @param exchange ServerWebExchange
+     * @return 访问令牌
+     */
+    public static AccessToken of(ServerWebExchange exchange) {
+        var value = exchange.getAttributes().computeIfAbsent(ATTRIBUTE, k -> new AccessToken(exchange.getRequest().getHeaders().getFirst("Authorization")));
+        return (AccessToken) value;
+    }
+
+    /**
+     * 获取原始令牌字符串
+     *
+     * @return 令牌字符串
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * 是否存在令牌
+     *
+     * @return 是否存在
+     */
+    public boolean isPresent() {
+        return Util.isNotEmpty(token);
+    }
+
+    /**
+     * 获取解码后的令牌, 不存在或解码失败时返回null
+     *
+     * @return TokenKey
+     */
+    public TokenKey getTokenKey() {
+        if (!decoded) {
+            synchronized (this) {
+                if (!decoded) {
+                    tokenKey = isPresent() ? decode() : null;
+                    decoded = true;
+                }
+            }
+        }
+
+        return tokenKey;
+    }
+
+    /**
+     * 获取无效Token缓存的检查结果
+     *
+     * @return 是否已知无效, 未检查时为null
+     */
+    Boolean getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * 保存无效Token缓存的检查结果
+     *
+     * @param invalid 是否已知无效
+     */
+    void setInvalid(boolean invalid) {
+        this.invalid = invalid;
+    }
+
+    /**
+     * 解码令牌
+     *
+     * @return TokenKey
+     */
+    private TokenKey decode() {
+        try {
+            return Json.toToken(token);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.internal.ThreadExecutorMap;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 阻塞调用卸载执行器, 将同步的Redis及HTTP调用移出事件循环线程, 结果回到调用方的事件循环线程发出.
+ * Java 21及以上版本使用虚拟线程, 否则使用有界的平台线程池
+ */
+@Component
+public class BlockingOffload {
+    private static final String PREFIX = "insight.offload.";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxPending;
+    private final Duration timeout;
+    private final Timer queueTimer;
+    private final Counter rejected;
+
+    /**
+     * 构造函数
+     *
+     * @param env      EnvUtil
+     * @param registry MeterRegistry
+     */
+    public BlockingOffload(EnvUtil env, MeterRegistry registry) {
+        var maxConcurrent = EnvHelper.getInt(env, PREFIX + "maxConcurrent", 256);
+        maxPending = EnvHelper.getInt(env, PREFIX + "maxPending", 10000);
+        timeout = Duration.ofMillis(EnvHelper.getLong(env, PREFIX + "timeout", 10000));
+        permits = new Semaphore(maxConcurrent);
+        executor = createExecutor(EnvHelper.getBoolean(env, PREFIX + "virtual", true), maxConcurrent);
+
+        queueTimer = Timer.builder("gateway.offload.queue").register(registry);
+        rejected = Counter.builder("gateway.offload.rejected").register(registry);
+        Gauge.builder("gateway.offload.pending", pending, AtomicInteger::get).register(registry);
+        Gauge.builder("gateway.offload.active", permits, i -> maxConcurrent - i.availablePermits()).register(registry);
+    }
+
+    /**
+     * 以默认超时时间执行阻塞调用
+     *
+     * @param callable 阻塞调用
+     * @param <T>      返回值类型
+     * @return Mono
+     */
+    public <T> Mono<T> call(Callable<T> callable) {
+        return call(callable, timeout);
+    }
+
+    /**
+     * 在卸载执行器中执行阻塞调用, 取消或超时将中断执行线程.
+     * 调用结束即释放并发许可, 结果在订阅时所在的事件循环线程发出, 后续的过滤器链不占用卸载线程及许可
+     *
+     * @param callable 阻塞调用
+     * @param timeout  超时时间
+     * @param <T>      返回值类型
+     * @return Mono
+     */
+    public <T> Mono<T> call(Callable<T> callable, Duration timeout) {
+        Mono<T> mono = Mono.create(sink -> {
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                rejected.increment();
+                sink.error(new RejectedExecutionException("等待执行的阻塞调用过多"));
+                return;
+            }
+
+            var started = new AtomicBoolean();
+            var submitted = System.nanoTime();
+            var loop = ThreadExecutorMap.currentExecutor();
+            Future<?> future;
+            try {
+                future = executor.submit(() -> {
+                    if (!started.compareAndSet(false, true)) {
+                        return;
+                    }
+
+                    try {
+                        permits.acquire();
+                    } catch (InterruptedException ex) {
+                        pending.decrementAndGet();
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+
+                    pending.decrementAndGet();
+                    queueTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                    T value = null;
+                    Throwable error = null;
+                    try {
+                        value = callable.call();
+                    } catch (Throwable ex) {
+                        error = ex;
+                    } finally {
+                        permits.release();
+                    }
+
+                    var result = value;
+                    var failure = error;
+                    emit(loop, () -> {
+                        if (failure == null) {
+                            sink.success(result);
+                        } else {
+                            sink.error(failure);
+                        }
+                    });
+                });
+            } catch (RejectedExecutionException ex) {
+                pending.decrementAndGet();
+                rejected.increment();
+                sink.error(ex);
+                return;
+            }
+
+            sink.onCancel(() -> {
+                if (started.compareAndSet(false, true)) {
+                    pending.decrementAndGet();
+                }
+
+                future.cancel(true);
+            });
+        });
+
+        return mono.timeout(timeout);
+    }
+
+    /**
+     * 关闭执行器
+     */
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 创建执行器, 运行环境支持虚拟线程时优先使用虚拟线程
+     *
+     * @param virtual       是否使用虚拟线程
+     * @param maxConcurrent 最大并发数
+     * @return ExecutorService
+     */
+    private ExecutorService createExecutor(boolean virtual, int maxConcurrent) {
+        if (virtual && Runtime.version().feature() >= 21) {
+            try {
+                var method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                logger.info("阻塞调用卸载执行器使用虚拟线程");
+                return (ExecutorService) method.invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                logger.warn("创建虚拟线程执行器失败, 使用平台线程: {}", ex.getMessage());
+            }
+        }
+
+        var count = new AtomicInteger();
+        var pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            var thread = new Thread(r, "offload-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * 在事件循环线程发出结果, 订阅时不在事件循环线程或事件循环已关闭时直接发出
+     *
+     * @param loop   订阅时所在的事件循环, 可为null
+     * @param signal 发出结果
+     */
+    private static void emit(Executor loop, Runnable signal) {
+        if (loop == null) {
+            signal.run();
+            return;
+        }
+
+        try {
+            loop.execute(signal);
+        } catch (RejectedExecutionException ex) {
+            signal.run();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.insight.gateway.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 本地缓存命中统计, 以gateway.cache.requests{cache, result=hit|miss}输出
+ */
+public class CacheStats {
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * 构造函数
+     *
+     * @param registry MeterRegistry
+     * @param cache    缓存名称
+     */
+    public CacheStats(MeterRegistry registry, String cache) {
+        hits = Counter.builder("gateway.cache.requests").tag("cache", cache).tag("result", "hit").register(registry);
+        misses = Counter.builder("gateway.cache.requests").tag("cache", cache).tag("result", "miss").register(registry);
+    }
+
+    /**
+     * 记录一次命中
+     */
+    public void hit() {
+        hits.increment();
+    }
+
+    /**
+     * 记录一次未命中
+     */
+    public void miss() {
+        misses.increment();
+    }
+
+    /**
+     * 获取命中统计
+     *
+     * @return 命中次数、未命中次数及命中率
+     */
+    public Map<String, Object> toMap() {
+        var hit = hits.count();
+        var miss = misses.count();
+        var map = new LinkedHashMap<String, Object>();
+        map.put("hits", (long) hit);
+        map.put("misses", (long) miss);
+        map.put("hitRate", hit + miss == 0 ? 0 : hit / (hit + miss));
+        return map;
+    }
+}
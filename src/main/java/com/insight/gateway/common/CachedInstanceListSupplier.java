@@ -0,0 +1,38 @@
+package com.insight.gateway.common;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 基于本地实例缓存的服务实例列表提供者
+ */
+public class CachedInstanceListSupplier implements ServiceInstanceListSupplier {
+    private final String serviceId;
+    private final DiscoveryCache cache;
+
+    /**
+     * 构造函数
+     *
+     * @param serviceId 服务名称
+     * @param cache     服务实例缓存
+     */
+    public CachedInstanceListSupplier(String serviceId, DiscoveryCache cache) {
+        this.serviceId = serviceId;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return cache.getInstances(serviceId).flux();
+    }
+}
@@ -0,0 +1,183 @@
+package com.insight.gateway.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 无锁熔断器
+ */
+public class CircuitBreaker {
+    public static final int CLOSED = 0;
+    public static final int OPEN = 1;
+    public static final int HALF_OPEN = 2;
+
+    /**
+     * 服务名称
+     */
+    private final String service;
+
+    /**
+     * 熔断器状态
+     */
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+
+    /**
+     * 状态变更时间(毫秒)
+     */
+    private final AtomicLong changedTime = new AtomicLong();
+
+    /**
+     * 统计窗口开始时间(毫秒)
+     */
+    private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * 统计窗口内的调用次数
+     */
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /**
+     * 统计窗口内的失败次数
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile double failureRate;
+    private volatile int minCalls;
+    private volatile long openTime;
+    private volatile long window;
+
+    /**
+     * 构造函数
+     *
+     * @param service 服务名称
+     */
+    public CircuitBreaker(String service) {
+        this.service = service;
+    }
+
+    /**
+     * 设置熔断参数
+     *
+     * @param failureRate 触发熔断的失败率
+     * @param minCalls    触发熔断的最小调用次数
+     * @param openTime    熔断持续时间(毫秒)
+     * @param window      统计窗口(毫秒)
+     */
+    public void configure(double failureRate, int minCalls, long openTime, long window) {
+        this.failureRate = failureRate;
+        this.minCalls = minCalls;
+        this.openTime = openTime;
+        this.window = window;
+    }
+
+    /**
+     * 是否允许调用, 熔断时间结束后仅放行一个探测请求
+     *
+     * @return 是否允许调用
+     */
+    public boolean tryAcquire() {
+        var current = state.get();
+        if (current == CLOSED) {
+            return true;
+        }
+
+        var now = System.currentTimeMillis();
+        var changed = changedTime.get();
+        if (now - changed < openTime) {
+            return false;
+        }
+
+        // 半开状态下探测请求超时未返回时, 允许再次探测
+        if (current == OPEN) {
+            if (state.compareAndSet(OPEN, HALF_OPEN)) {
+                changedTime.set(now);
+                return true;
+            }
+
+            return false;
+        }
+
+        return changedTime.compareAndSet(changed, now);
+    }
+
+    /**
+     * 记录调用成功
+     */
+    public void onSuccess() {
+        if (state.get() == HALF_OPEN) {
+            if (state.compareAndSet(HALF_OPEN, CLOSED)) {
+                resetWindow(System.currentTimeMillis());
+            }
+
+            return;
+        }
+
+        record(false);
+    }
+
+    /**
+     * 记录调用失败
+     */
+    public void onFailure() {
+        if (state.get() == HALF_OPEN) {
+            if (state.compareAndSet(HALF_OPEN, OPEN)) {
+                changedTime.set(System.currentTimeMillis());
+            }
+
+            return;
+        }
+
+        record(true);
+    }
+
+    /**
+     * 获取服务名称
+     *
+     * @return 服务名称
+     */
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * 获取熔断器状态
+     *
+     * @return 熔断器状态
+     */
+    public int getState() {
+        return state.get();
+    }
+
+    /**
+     * 记录调用结果, 失败率超过阈值时打开熔断器
+     *
+     * @param failed 是否失败
+     */
+    private void record(boolean failed) {
+        var now = System.currentTimeMillis();
+        var start = windowStart.get();
+        if (now - start > window && windowStart.compareAndSet(start, now)) {
+            calls.set(0);
+            failures.set(0);
+        }
+
+        var total = calls.incrementAndGet();
+        var count = failed ? failures.incrementAndGet() : failures.get();
+        if (total >= minCalls && count >= total * failureRate && state.compareAndSet(CLOSED, OPEN)) {
+            changedTime.set(now);
+        }
+    }
+
+    /**
+     * 重置统计窗口
+     *
+     * @param now 当前时间(毫秒)
+     */
+    private void resetWindow(long now) {
+        windowStart.set(now);
+        calls.set(0);
+        failures.set(0);
+    }
+}
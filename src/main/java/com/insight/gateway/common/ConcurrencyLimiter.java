@@ -0,0 +1,195 @@
+package com.insight.gateway.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 自适应并发限制器(基于延迟梯度调整并发上限)
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * 最小延迟采样窗口(纳秒)
+     */
+    private static final long RTT_WINDOW = 30_000_000_000L;
+
+    /**
+     * 服务名称
+     */
+    private final String service;
+
+    /**
+     * 当前在途请求数
+     */
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /**
+     * 当前并发上限(double的位表示)
+     */
+    private final AtomicLong limit;
+
+    /**
+     * 基准延迟(纳秒)
+     */
+    private final AtomicLong minRtt = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * 当前窗口内的最小延迟(纳秒)
+     */
+    private final AtomicLong windowRtt = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * 当前窗口开始时间(纳秒)
+     */
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private volatile int minLimit;
+    private volatile int maxLimit;
+    private volatile double tolerance;
+    private volatile double smoothing;
+    private volatile double normalShare;
+
+    /**
+     * 构造函数
+     *
+     * @param service      服务名称
+     * @param initialLimit 初始并发上限
+     */
+    public ConcurrencyLimiter(String service, int initialLimit) {
+        this.service = service;
+        this.limit = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    /**
+     * 设置限制参数
+     *
+     * @param minLimit    并发下限
+     * @param maxLimit    并发上限
+     * @param tolerance   延迟容忍倍数
+     * @param smoothing   平滑系数
+     * @param normalShare 普通请求可使用的并发比例
+     */
+    public void configure(int minLimit, int maxLimit, double tolerance, double smoothing, double normalShare) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.normalShare = normalShare;
+    }
+
+    /**
+     * 尝试获取执行许可
+     *
+     * @param critical 是否关键请求(关键请求可使用全部并发额度)
+     * @return 是否获得许可
+     */
+    public boolean tryAcquire(boolean critical) {
+        var current = getLimit();
+        var max = critical ? current : Math.max(1, (int) (current * normalShare));
+        while (true) {
+            var count = inflight.get();
+            if (count >= max) {
+                return false;
+            }
+
+            if (inflight.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放许可并根据采样结果调整并发上限
+     *
+     * @param rtt     请求延迟(纳秒), 小于0时不采样
+     * @param dropped 是否失败(超时或服务端错误)
+     */
+    public void release(long rtt, boolean dropped) {
+        var count = inflight.getAndDecrement();
+        if (rtt < 0) {
+            return;
+        }
+
+        if (dropped) {
+            update(current -> current * 0.9);
+            return;
+        }
+
+        var baseline = sampleRtt(rtt);
+        update(current -> {
+            // 请求量不足时不扩大并发上限
+            if (count * 2 < current && rtt <= baseline * tolerance) {
+                return current;
+            }
+
+            var gradient = Math.max(0.5, Math.min(1.0, baseline * tolerance / rtt));
+            var target = current * gradient + Math.sqrt(current);
+            return current * (1 - smoothing) + target * smoothing;
+        });
+    }
+
+    /**
+     * 获取服务名称
+     *
+     * @return 服务名称
+     */
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * 获取当前并发上限
+     *
+     * @return 并发上限
+     */
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    /**
+     * 获取当前在途请求数
+     *
+     * @return 在途请求数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 记录延迟样本并返回基准延迟
+     *
+     * @param rtt 请求延迟(纳秒)
+     * @return 基准延迟(纳秒)
+     */
+    private long sampleRtt(long rtt) {
+        var now = System.nanoTime();
+        var start = windowStart.get();
+        windowRtt.accumulateAndGet(rtt, Math::min);
+
+        // 每个窗口结束时以窗口内最小延迟作为新的基准, 以适应服务性能的变化
+        if (now - start > RTT_WINDOW && windowStart.compareAndSet(start, now)) {
+            minRtt.set(windowRtt.getAndSet(Long.MAX_VALUE));
+        }
+
+        return minRtt.accumulateAndGet(rtt, Math::min);
+    }
+
+    /**
+     * 以CAS方式更新并发上限
+     *
+     * @param function 计算新上限的函数
+     */
+    private void update(DoubleUnaryOperator function) {
+        while (true) {
+            var bits = limit.get();
+            var current = Double.longBitsToDouble(bits);
+            var value = Math.max(minLimit, Math.min(maxLimit, function.applyAsDouble(current)));
+            if (value == current || limit.compareAndSet(bits, Double.doubleToLongBits(value))) {
+                return;
+            }
+        }
+    }
+}
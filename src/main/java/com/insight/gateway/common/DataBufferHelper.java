@@ -0,0 +1,59 @@
+package com.insight.gateway.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 缓冲区帮助类, 在多个订阅者之间共享同一缓冲区的数据
+ */
+public final class DataBufferHelper {
+
+    private DataBufferHelper() {
+    }
+
+    /**
+     * 创建共享数据的缓冲区副本, Netty缓冲区增加引用计数, 其他缓冲区复制数据. 副本须由使用者释放
+     *
+     * @param dataBuffer 原缓冲区
+     * @return 缓冲区副本
+     */
+    public static DataBuffer duplicate(DataBuffer dataBuffer) {
+        if (dataBuffer instanceof NettyDataBuffer buffer) {
+            return buffer.factory().wrap(buffer.getNativeBuffer().retainedDuplicate());
+        }
+
+        return dataBuffer.factory().wrap(toBytes(dataBuffer));
+    }
+
+    /**
+     * 创建共享数据的Netty缓冲区, Netty缓冲区增加引用计数, 其他缓冲区复制数据. 返回的缓冲区须由使用者释放
+     *
+     * @param dataBuffer 原缓冲区
+     * @return Netty缓冲区
+     */
+    public static ByteBuf toByteBuf(DataBuffer dataBuffer) {
+        if (dataBuffer instanceof NettyDataBuffer buffer) {
+            return buffer.getNativeBuffer().retainedDuplicate();
+        }
+
+        return Unpooled.wrappedBuffer(toBytes(dataBuffer));
+    }
+
+    /**
+     * 复制缓冲区的可读数据, 不改变读取位置
+     *
+     * @param dataBuffer 缓冲区
+     * @return 数据
+     */
+    private static byte[] toBytes(DataBuffer dataBuffer) {
+        var bytes = new byte[dataBuffer.readableByteCount()];
+        dataBuffer.toByteBuffer(dataBuffer.readPosition(), ByteBuffer.wrap(bytes), 0, bytes.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,66 @@
+package com.insight.gateway.common;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 请求截止时间帮助类, 截止时间保存在exchange属性中并通过请求头传递给后端服务
+ */
+public final class Deadline {
+
+    /**
+     * 请求剩余时间请求头(毫秒)
+     */
+    public static final String HEADER = "X-Request-Timeout";
+    private static final String ATTRIBUTE = "deadline";
+
+    private Deadline() {
+    }
+
+    /**
+     * 设置请求的截止时间
+     *
+     * @param exchange ServerWebExchange
+     * @param budget   剩余时间(毫秒)
+     */
+    public static void set(ServerWebExchange exchange, long budget) {
+        exchange.getAttributes().put(ATTRIBUTE, System.currentTimeMillis() + budget);
+    }
+
+    /**
+     * 获取请求的剩余时间
+     *
+     * @param exchange ServerWebExchange
+     * @return 剩余时间(毫秒), 未设置截止时间时返回null
+     */
+    public static Long remaining(ServerWebExchange exchange) {
+        Long deadline = exchange.getAttribute(ATTRIBUTE);
+        return deadline == null ? null : Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    /**
+     * 在指定的超时时间和请求剩余时间中取较短者
+     *
+     * @param exchange ServerWebExchange
+     * @param timeout  超时时间
+     * @return 超时时间
+     */
+    public static Duration limit(ServerWebExchange exchange, Duration timeout) {
+        var remaining = remaining(exchange);
+        return remaining == null || remaining >= timeout.toMillis() ? timeout : Duration.ofMillis(remaining);
+    }
+
+    /**
+     * 请求是否已超过截止时间
+     *
+     * @param exchange ServerWebExchange
+     * @return 是否已超时
+     */
+    public static boolean isExpired(ServerWebExchange exchange) {
+        var remaining = remaining(exchange);
+        return remaining != null && remaining <= 0;
+    }
+}
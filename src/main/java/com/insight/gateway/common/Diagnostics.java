@@ -0,0 +1,189 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 运行时诊断数据, 统计接口访问量及耗时、路由在途请求数、限流拒绝次数及事件循环延迟
+ */
+@Component
+public class Diagnostics {
+    private static final String PREFIX = "insight.diagnostics.";
+    private final Map<String, SlidingWindow> interfaces = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inflight = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindow> rejects = new ConcurrentHashMap<>();
+    private final AtomicLong probeLag = new AtomicLong();
+
+    /**
+     * 未执行的探测任务及其提交时间(纳秒)
+     */
+    private final Map<Executor, Long> pending = new ConcurrentHashMap<>();
+    private final EnvUtil env;
+
+    /**
+     * 最近一次探测的事件循环延迟(纳秒), 含仍在等待的探测任务已等待的时间
+     */
+    private volatile long eventLoopLag;
+
+    /**
+     * 统计的接口数上限
+     */
+    private volatile int maxInterfaces;
+
+    /**
+     * 构造函数
+     *
+     * @param env      EnvUtil
+     * @param registry MeterRegistry
+     */
+    public Diagnostics(EnvUtil env, MeterRegistry registry) {
+        this.env = env;
+        loadSettings();
+        Gauge.builder("gateway.eventloop.lag", this, i -> i.eventLoopLag / 1_000_000.0).register(registry);
+    }
+
+    /**
+     * 统计接口请求的耗时及路由在途请求数
+     *
+     * @param method 请求方法
+     * @param path   请求路径
+     * @param result 请求处理
+     * @return Mono
+     */
+    public Mono<Void> track(HttpMethod method, String path, Mono<Void> result) {
+        var key = method.name() + ":" + InterfaceConfigCache.normalize(path);
+        var window = interfaces.get(key);
+        if (window == null && interfaces.size() < maxInterfaces) {
+            window = interfaces.computeIfAbsent(key, k -> new SlidingWindow());
+        }
+
+        var route = GatewayConfig.match(path);
+        var counter = route == null ? null : inflight.computeIfAbsent(route.getId(), k -> new AtomicInteger());
+        var stats = window;
+        return Mono.defer(() -> {
+            if (counter != null) {
+                counter.incrementAndGet();
+            }
+
+            var start = System.nanoTime();
+            return result.doFinally(signal -> {
+                if (counter != null) {
+                    counter.decrementAndGet();
+                }
+
+                if (stats != null) {
+                    stats.record(System.nanoTime() - start);
+                }
+            });
+        });
+    }
+
+    /**
+     * 记录一次限流拒绝
+     *
+     * @param type 限流类型
+     */
+    public void reject(String type) {
+        rejects.computeIfAbsent(type, k -> new SlidingWindow()).increment();
+    }
+
+    /**
+     * 获取接口统计数据
+     *
+     * @return 接口(方法:规范化URL)及统计窗口
+     */
+    public Map<String, SlidingWindow> getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * 获取路由在途请求数
+     *
+     * @return 路由ID及在途请求数
+     */
+    public Map<String, AtomicInteger> getInflight() {
+        return inflight;
+    }
+
+    /**
+     * 获取限流拒绝统计数据
+     *
+     * @return 限流类型及统计窗口
+     */
+    public Map<String, SlidingWindow> getRejects() {
+        return rejects;
+    }
+
+    /**
+     * 获取最近一次探测的事件循环延迟
+     *
+     * @return 延迟(毫秒)
+     */
+    public double getEventLoopLag() {
+        return eventLoopLag / 1_000_000.0;
+    }
+
+    /**
+     * 配置变更时重新加载参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            loadSettings();
+        }
+    }
+
+    /**
+     * 向每个服务端事件循环提交探测任务, 以任务的等待时间作为事件循环延迟. 取上一轮已执行探测的最大值与
+     * 最早未执行探测的已等待时间中的较大者, 事件循环阻塞期间延迟持续增长. 未执行的事件循环不重复提交
+     */
+    @Scheduled(fixedRateString = "${insight.diagnostics.lagInterval:1000}")
+    public void probeEventLoop() {
+        var now = System.nanoTime();
+        var lag = probeLag.getAndSet(0);
+        for (var submit : pending.values()) {
+            lag = Math.max(lag, now - submit);
+        }
+
+        eventLoopLag = lag;
+
+        var group = HttpResources.get().onServer(LoopResources.hasNativeSupport());
+        for (var executor : group) {
+            var start = System.nanoTime();
+            if (pending.putIfAbsent(executor, start) != null) {
+                continue;
+            }
+
+            executor.execute(() -> {
+                probeLag.accumulateAndGet(System.nanoTime() - start, Math::max);
+                pending.remove(executor);
+            });
+        }
+    }
+
+    /**
+     * 加载参数
+     */
+    private void loadSettings() {
+        maxInterfaces = EnvHelper.getInt(env, PREFIX + "maxInterfaces", 5000);
+    }
+}
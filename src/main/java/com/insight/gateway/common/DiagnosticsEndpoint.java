@@ -0,0 +1,154 @@
+package com.insight.gateway.common;
+
+import com.insight.gateway.filter.ConcurrencyLimitFilter;
+import com.insight.gateway.filter.LogFilter;
+import com.insight.utils.EnvUtil;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 网关诊断端点(/actuator/diagnostics), 须携带管理令牌访问
+ */
+@Component
+@Endpoint(id = "diagnostics")
+public class DiagnosticsEndpoint {
+    private final EnvUtil env;
+    private final Diagnostics diagnostics;
+    private final InterfaceConfigCache interfaceConfig;
+    private final HotKeyCache hotKeys;
+    private final InvalidTokenCache invalidTokens;
+    private final ConcurrencyLimitFilter limitFilter;
+    private final LogFilter logFilter;
+
+    /**
+     * 构造函数
+     *
+     * @param env             EnvUtil
+     * @param diagnostics     运行时诊断数据
+     * @param interfaceConfig 接口配置缓存
+     * @param hotKeys         热点键缓存
+     * @param invalidTokens   无效Token缓存
+     * @param limitFilter     服务并发限制过滤器
+     * @param logFilter       请求日志过滤器
+     */
+    public DiagnosticsEndpoint(EnvUtil env, Diagnostics diagnostics, InterfaceConfigCache interfaceConfig, HotKeyCache hotKeys,
+                               InvalidTokenCache invalidTokens, ConcurrencyLimitFilter limitFilter, LogFilter logFilter) {
+        this.env = env;
+        this.diagnostics = diagnostics;
+        this.interfaceConfig = interfaceConfig;
+        this.hotKeys = hotKeys;
+        this.invalidTokens = invalidTokens;
+        this.limitFilter = limitFilter;
+        this.logFilter = logFilter;
+    }
+
+    /**
+     * 获取诊断数据
+     *
+     * @return 诊断数据
+     */
+    @ReadOperation
+    public Map<String, Object> report() {
+        var top = EnvHelper.getInt(env, "insight.diagnostics.top", 10);
+        var data = new LinkedHashMap<String, Object>();
+        data.put("topByRate", top(top, SlidingWindow::getRate));
+        data.put("topByLatency", top(top, SlidingWindow::getAverage));
+
+        var inflight = new LinkedHashMap<String, Integer>();
+        diagnostics.getInflight().forEach((k, v) -> inflight.put(k, v.get()));
+        data.put("inflight", inflight);
+
+        var limiters = new LinkedHashMap<String, Object>();
+        limitFilter.getLimiters().forEach((k, v) -> limiters.put(k, Map.of("limit", v.getLimit(), "inflight", v.getInflight())));
+        data.put("limiters", limiters);
+
+        var rejects = new LinkedHashMap<String, Object>();
+        diagnostics.getRejects().forEach((k, v) -> rejects.put(k, Map.of("count", v.getCount(), "rate", v.getRate())));
+        data.put("rejects", rejects);
+
+        data.put("eventLoopLag", diagnostics.getEventLoopLag());
+        data.put("interfaceConfigs", interfaceConfig.getConfigs().size());
+        data.put("hotKeys", hotKeys.getHotKeys());
+
+        var caches = new LinkedHashMap<String, Object>();
+        caches.put("interface", interfaceConfig.getStats().toMap());
+        caches.put("hotKey", hotKeys.getStats().toMap());
+        caches.put("invalidToken", invalidTokens.getStats().toMap());
+        data.put("caches", caches);
+        data.put("logSampleRate", logFilter.getSampleRate());
+        return data;
+    }
+
+    /**
+     * 运行时开关
+     * flush: 清空缓存, value为interface、hotkey、token或all;
+     * logSampleRate: 设置请求日志抽样比例, value为0-1之间的小数
+     *
+     * @param name  开关名称
+     * @param value 开关值
+     * @return 设置后的值
+     */
+    @WriteOperation
+    public Map<String, Object> toggle(@Selector String name, String value) {
+        switch (name) {
+            case "flush" -> {
+                var all = "all".equals(value);
+                if (!all && !List.of("interface", "hotkey", "token").contains(value)) {
+                    throw new InvalidEndpointRequestException("不支持的缓存: " + value, "Unsupported cache");
+                }
+
+                if (all || "interface".equals(value)) {
+                    interfaceConfig.reload();
+                }
+
+                if (all || "hotkey".equals(value)) {
+                    hotKeys.clear();
+                }
+
+                if (all || "token".equals(value)) {
+                    invalidTokens.clear();
+                }
+
+                return Map.of("flush", value);
+            }
+            case "logSampleRate" -> {
+                try {
+                    logFilter.setSampleRate(Double.parseDouble(value));
+                } catch (NumberFormatException ex) {
+                    throw new InvalidEndpointRequestException("无效的抽样比例: " + value, "Invalid sample rate");
+                }
+
+                return Map.of("logSampleRate", logFilter.getSampleRate());
+            }
+            default -> throw new InvalidEndpointRequestException("不支持的开关: " + name, "Unsupported toggle");
+        }
+    }
+
+    /**
+     * 按指标获取排名靠前的接口
+     *
+     * @param top    数量
+     * @param metric 排序指标
+     * @return 接口统计数据
+     */
+    private List<Map<String, Object>> top(int top, ToDoubleFunction<SlidingWindow> metric) {
+        return diagnostics.getInterfaces().entrySet().stream()
+                .filter(e -> e.getValue().getCount() > 0)
+                .sorted(Comparator.comparingDouble((Map.Entry<String, SlidingWindow> e) -> metric.applyAsDouble(e.getValue())).reversed())
+                .limit(top)
+                .map(e -> Map.<String, Object>of("interface", e.getKey(), "rate", e.getValue().getRate(), "latency", e.getValue().getAverage()))
+                .toList();
+    }
+}
@@ -0,0 +1,285 @@
+package com.insight.gateway.common;
+
+import com.insight.gateway.common.dto.InstanceDto;
+import com.insight.gateway.common.dto.RouteDto;
+import com.insight.utils.EnvUtil;
+import com.insight.utils.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 服务实例缓存, 启动时预热并在注册中心不可用时使用最后一次成功获取的实例列表.
+ * 超过最长保留时间(insight.discovery.maxStale)未能刷新的实例列表不再使用.
+ * 在接口配置加载之后、启动预热之前执行
+ */
+@Component
+@Order(1)
+public class DiscoveryCache implements ApplicationRunner {
+    private static final String PREFIX = "insight.discovery.";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+    /**
+     * 实例列表最后一次从注册中心获取成功的时间
+     */
+    private final Map<String, Long> fetchTimes = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final BlockingOffload offload;
+    private final EnvUtil env;
+
+    /**
+     * 实例列表是否有变化未保存
+     */
+    private volatile boolean changed;
+
+    /**
+     * 构造函数
+     *
+     * @param discoveryClient ReactiveDiscoveryClient
+     * @param offload         阻塞调用卸载执行器
+     * @param env             EnvUtil
+     */
+    public DiscoveryCache(ReactiveDiscoveryClient discoveryClient, BlockingOffload offload, EnvUtil env) {
+        this.discoveryClient = discoveryClient;
+        this.offload = offload;
+        this.env = env;
+    }
+
+    /**
+     * 启动预热: 加载本地快照, 然后从注册中心获取路由表中全部服务的实例列表
+     *
+     * @param args ApplicationArguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        loadSnapshot();
+
+        var timeout = Duration.ofMillis(EnvHelper.getLong(env, PREFIX + "warmupTimeout", 10000));
+        var services = GatewayConfig.getRoutes().stream().map(RouteDto::getService).distinct().toList();
+        try {
+            Flux.fromIterable(services).flatMap(this::fetch).then().block(timeout);
+        } catch (Exception ex) {
+            logger.warn("服务实例预热未完成: {}", ex.getMessage());
+        }
+
+        logger.info("服务实例预热完成, 已缓存 {}/{} 个服务", instances.size(), services.size());
+        saveSnapshot();
+    }
+
+    /**
+     * 获取服务实例列表, 优先使用缓存, 缓存中不存在时从注册中心获取
+     *
+     * @param service 服务名称
+     * @return 服务实例列表
+     */
+    public Mono<List<ServiceInstance>> getInstances(String service) {
+        var list = instances.get(service);
+        if (list != null && !isExpired(service)) {
+            return Mono.just(list);
+        }
+
+        return fetch(service).defaultIfEmpty(List.of());
+    }
+
+    /**
+     * 后台刷新全部已缓存服务的实例列表. 调度线程只发起刷新, 不等待结果, 快照在卸载执行器中保存
+     */
+    @Scheduled(fixedDelayString = "${insight.discovery.refreshInterval:10000}", initialDelayString = "${insight.discovery.refreshInterval:10000}")
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        var timeout = Duration.ofMillis(EnvHelper.getLong(env, PREFIX + "warmupTimeout", 10000));
+        Flux.fromIterable(new ArrayList<>(instances.keySet())).flatMap(this::fetch).then().timeout(timeout)
+                .onErrorResume(ex -> {
+                    logger.warn("刷新服务实例失败, 继续使用缓存的实例列表: {}", ex.getMessage());
+                    return Mono.empty();
+                })
+                .then(offload.call(() -> {
+                    saveSnapshot();
+                    return true;
+                }))
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(null, ex -> logger.warn("保存服务实例快照失败: {}", ex.getMessage()));
+    }
+
+    /**
+     * 从注册中心获取服务实例列表, 获取失败或列表为空时保留原缓存, 原缓存超过最长保留时间时移除
+     *
+     * @param service 服务名称
+     * @return 服务实例列表
+     */
+    private Mono<List<ServiceInstance>> fetch(String service) {
+        return discoveryClient.getInstances(service).collectList()
+                .flatMap(list -> {
+                    if (list.isEmpty()) {
+                        return Mono.justOrEmpty(getUnexpired(service));
+                    }
+
+                    var old = instances.put(service, List.copyOf(list));
+                    fetchTimes.put(service, System.currentTimeMillis());
+                    if (old == null || !isSame(old, list)) {
+                        changed = true;
+                    }
+
+                    return Mono.just(list);
+                })
+                .onErrorResume(ex -> {
+                    logger.warn("获取服务 {} 的实例失败: {}", service, ex.getMessage());
+                    return Mono.justOrEmpty(getUnexpired(service));
+                });
+    }
+
+    /**
+     * 获取未超过最长保留时间的缓存实例列表, 已超过时移除
+     *
+     * @param service 服务名称
+     * @return 服务实例列表, 不存在或已超过最长保留时间时返回null
+     */
+    private List<ServiceInstance> getUnexpired(String service) {
+        if (!isExpired(service)) {
+            return instances.get(service);
+        }
+
+        if (instances.remove(service) != null) {
+            fetchTimes.remove(service);
+            changed = true;
+            logger.warn("服务 {} 的实例列表超过最长保留时间未能刷新, 已移除", service);
+        }
+
+        return null;
+    }
+
+    /**
+     * 缓存的实例列表是否已超过最长保留时间
+     *
+     * @param service 服务名称
+     * @return 是否已超过
+     */
+    private boolean isExpired(String service) {
+        var time = fetchTimes.get(service);
+        return time == null || System.currentTimeMillis() - time > EnvHelper.getLong(env, PREFIX + "maxStale", 1800000);
+    }
+
+    /**
+     * 两个实例列表是否相同
+     *
+     * @param old  原实例列表
+     * @param list 新实例列表
+     * @return 是否相同
+     */
+    private boolean isSame(List<ServiceInstance> old, List<ServiceInstance> list) {
+        if (old.size() != list.size()) {
+            return false;
+        }
+
+        for (var i = 0; i < old.size(); i++) {
+            var a = old.get(i);
+            var b = list.get(i);
+            if (!a.getHost().equals(b.getHost()) || a.getPort() != b.getPort()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 加载本地快照
+     */
+    private void loadSnapshot() {
+        var path = getSnapshotPath();
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+
+        try {
+            // 以快照的保存时间作为获取时间, 过旧的快照不会被使用
+            var time = Files.getLastModifiedTime(path).toMillis();
+            var json = Files.readString(path, StandardCharsets.UTF_8);
+            var list = Json.toList(json, InstanceDto.class);
+            if (list == null) {
+                return;
+            }
+
+            for (var dto : list) {
+                var instance = new DefaultServiceInstance(dto.getInstanceId(), dto.getServiceId(), dto.getHost(), dto.getPort(), Boolean.TRUE.equals(dto.getSecure()), dto.getMetadata());
+                instances.computeIfAbsent(dto.getServiceId(), k -> new ArrayList<>()).add(instance);
+            }
+
+            instances.replaceAll((k, v) -> List.copyOf(v));
+            instances.keySet().forEach(i -> fetchTimes.put(i, time));
+            logger.info("已加载服务实例快照: {}", path);
+        } catch (IOException ex) {
+            logger.warn("加载服务实例快照失败: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * 实例列表有变化时保存本地快照
+     */
+    private void saveSnapshot() {
+        var path = getSnapshotPath();
+        if (path == null || !changed) {
+            return;
+        }
+
+        changed = false;
+        var list = new ArrayList<InstanceDto>();
+        instances.values().forEach(i -> i.forEach(instance -> {
+            var dto = new InstanceDto();
+            dto.setInstanceId(instance.getInstanceId());
+            dto.setServiceId(instance.getServiceId());
+            dto.setHost(instance.getHost());
+            dto.setPort(instance.getPort());
+            dto.setSecure(instance.isSecure());
+            dto.setMetadata(instance.getMetadata());
+            list.add(dto);
+        }));
+
+        try {
+            var temp = Files.createTempFile(path.toAbsolutePath().getParent(), "gateway-instances", ".tmp");
+            Files.writeString(temp, Json.toJson(list), StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            changed = true;
+            logger.warn("保存服务实例快照失败: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * 获取本地快照文件路径, 须配置为持久化的路径(如挂载的卷), 未配置时不使用快照
+     *
+     * @return 快照文件路径, 未配置时返回null
+     */
+    private Path getSnapshotPath() {
+        var path = EnvHelper.getString(env, PREFIX + "snapshot", null);
+        return path == null || path.isEmpty() ? null : Path.of(path);
+    }
+}
@@ -0,0 +1,112 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import com.insight.utils.Util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 配置读取帮助类
+ */
+public final class EnvHelper {
+
+    private EnvHelper() {
+    }
+
+    /**
+     * 读取字符串配置
+     *
+     * @param env          EnvUtil
+     * @param key          配置键
+     * @param defaultValue 默认值
+     * @return 配置值
+     */
+    public static String getString(EnvUtil env, String key, String defaultValue) {
+        var value = env.getValue(key);
+        return Util.isEmpty(value) ? defaultValue : value.trim();
+    }
+
+    /**
+     * 读取整型配置
+     *
+     * @param env          EnvUtil
+     * @param key          配置键
+     * @param defaultValue 默认值
+     * @return 配置值
+     */
+    public static int getInt(EnvUtil env, String key, int defaultValue) {
+        var value = getString(env, key, null);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 读取长整型配置
+     *
+     * @param env          EnvUtil
+     * @param key          配置键
+     * @param defaultValue 默认值
+     * @return 配置值
+     */
+    public static long getLong(EnvUtil env, String key, long defaultValue) {
+        var value = getString(env, key, null);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 读取浮点型配置
+     *
+     * @param env          EnvUtil
+     * @param key          配置键
+     * @param defaultValue 默认值
+     * @return 配置值
+     */
+    public static double getDouble(EnvUtil env, String key, double defaultValue) {
+        var value = getString(env, key, null);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 读取布尔型配置
+     *
+     * @param env          EnvUtil
+     * @param key          配置键
+     * @param defaultValue 默认值
+     * @return 配置值
+     */
+    public static boolean getBoolean(EnvUtil env, String key, boolean defaultValue) {
+        var value = getString(env, key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * 读取以逗号分隔的列表配置
+     *
+     * @param env          EnvUtil
+     * @param key          配置键
+     * @param defaultValue 默认值(逗号分隔)
+     * @return 配置值列表
+     */
+    public static List<String> getList(EnvUtil env, String key, String defaultValue) {
+        var value = getString(env, key, defaultValue);
+        if (Util.isEmpty(value)) {
+            return List.of();
+        }
+
+        return Arrays.stream(value.split(",")).map(String::trim).filter(i -> !i.isEmpty()).toList();
+    }
+}
@@ -1,9 +1,15 @@
 package com.insight.gateway.common;
 
+import com.insight.gateway.common.dto.RouteDto;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
 
 /**
  * @author 宣炳刚
@@ -11,8 +17,48 @@ import org.springframework.context.annotation.Configuration;
  * @remark 网关配置
  */
 @Configuration
+@LoadBalancerClients(defaultConfiguration = LoadBalancerConfig.class)
 public class GatewayConfig {
 
+    /**
+     * 路由表
+     */
+    private static final List<RouteDto> ROUTES = List.of(
+            new RouteDto("common-config", "/common/config", "common-basedata"),
+            new RouteDto("common-param", "/common/param", "common-basedata"),
+            new RouteDto("common-report", "/common/report", "common-basedata"),
+            new RouteDto("common-area", "/common/area", "common-basedata"),
+            new RouteDto("common-dict", "/common/dict", "common-basedata"),
+            new RouteDto("common-log", "/common/log", "common-basedata"),
+            new RouteDto("common-file", "/common/file", "common-basedata"),
+            new RouteDto("common-message", "/common/message", "common-message"),
+            new RouteDto("base-auth", "/base/auth", "base-auth"),
+            new RouteDto("base-role", "/base/role", "base-role"),
+            new RouteDto("base-organize", "/base/organize", "base-organize"),
+            new RouteDto("base-tenant", "/base/tenant", "base-tenant"),
+            new RouteDto("base-user", "/base/user", "base-user"),
+            new RouteDto("base-resource", "/base/resource", "base-resource"),
+            new RouteDto("hxb-ai", "/hxb/ai", "hxb-ai"),
+            new RouteDto("hxb-basedata", "/basedata", "hxb-basedata"),
+            new RouteDto("hxb-resource", "/resource", "hxb-resource"),
+            new RouteDto("hxb-plan", "/hxb/plan", "hxb-prepare", "lb://hxb-prepare-shadow", 0),
+            new RouteDto("hxb-teach", "/hxb/teach", "hxb-prepare", "lb://hxb-prepare-shadow", 0),
+            new RouteDto("hxb-research", "/hxb/research", "hxb-research"),
+            new RouteDto("hxb-agent", "/hxb/agent", "hxb-research"),
+            new RouteDto("hxb-contest", "/contest", "hxb-research"),
+            new RouteDto("hxb-study", "/hxb/study", "hxb-study"),
+            new RouteDto("hxb-tutor", "/hxb/tutor", "hxb-tutor"),
+            new RouteDto("hxb-note", "/hxb/note", "hxb-tutor"),
+            new RouteDto("hxb-question", "/hxb/question", "hxb-tutor"),
+            new RouteDto("hxb-homework", "/hxb/homework", "hxb-homework"),
+            new RouteDto("hxb-classwork", "/hxb/classwork", "hxb-classwork"),
+            new RouteDto("hxb-classtest", "/hxb/classtest", "hxb-classtest"),
+            new RouteDto("hxb-promote", "/hxb/promote", "hxb-promote"),
+            new RouteDto("hxb-stats", "/hxb/stats", "hxb-promote"),
+            new RouteDto("hxb-credit", "/hxb/credit", "hxb-credit"),
+            new RouteDto("hxb-statistical", "/statistical", "hxb-statistical")
+    );
+
     /**
      * 创建路由
      *
@@ -21,40 +67,49 @@ public class GatewayConfig {
      */
     @Bean
     public RouteLocator routes(RouteLocatorBuilder builder) {
-        return builder.routes()
-                .route("common-config", r -> r.path("/common/config/**").uri("lb://common-basedata"))
-                .route("common-param", r -> r.path("/common/param/**").uri("lb://common-basedata"))
-                .route("common-report", r -> r.path("/common/report/**").uri("lb://common-basedata"))
-                .route("common-area", r -> r.path("/common/area/**").uri("lb://common-basedata"))
-                .route("common-dict", r -> r.path("/common/dict/**").uri("lb://common-basedata"))
-                .route("common-log", r -> r.path("/common/log/**").uri("lb://common-basedata"))
-                .route("common-file", r -> r.path("/common/file/**").uri("lb://common-basedata"))
-                .route("common-message", r -> r.path("/common/message/**").uri("lb://common-message"))
-                .route("base-auth", r -> r.path("/base/auth/**").uri("lb://base-auth"))
-                .route("base-role", r -> r.path("/base/role/**").uri("lb://base-role"))
-                .route("base-organize", r -> r.path("/base/organize/**").uri("lb://base-organize"))
-                .route("base-tenant", r -> r.path("/base/tenant/**").uri("lb://base-tenant"))
-                .route("base-user", r -> r.path("/base/user/**").uri("lb://base-user"))
-                .route("base-resource", r -> r.path("/base/resource/**").uri("lb://base-resource"))
-                .route("hxb-ai", r -> r.path("/hxb/ai/**").uri("lb://hxb-ai"))
-                .route("hxb-basedata", r -> r.path("/basedata/**").uri("lb://hxb-basedata"))
-                .route("hxb-resource", r -> r.path("/resource/**").uri("lb://hxb-resource"))
-                .route("hxb-plan", r -> r.path("/hxb/plan/**").uri("lb://hxb-prepare"))
-                .route("hxb-teach", r -> r.path("/hxb/teach/**").uri("lb://hxb-prepare"))
-                .route("hxb-research", r -> r.path("/hxb/research/**").uri("lb://hxb-research"))
-                .route("hxb-agent", r -> r.path("/hxb/agent/**").uri("lb://hxb-research"))
-                .route("hxb-contest", r -> r.path("/contest/**").uri("lb://hxb-research"))
-                .route("hxb-study", r -> r.path("/hxb/study/**").uri("lb://hxb-study"))
-                .route("hxb-tutor", r -> r.path("/hxb/tutor/**").uri("lb://hxb-tutor"))
-                .route("hxb-note", r -> r.path("/hxb/note/**").uri("lb://hxb-tutor"))
-                .route("hxb-question", r -> r.path("/hxb/question/**").uri("lb://hxb-tutor"))
-                .route("hxb-homework", r -> r.path("/hxb/homework/**").uri("lb://hxb-homework"))
-                .route("hxb-classwork", r -> r.path("/hxb/classwork/**").uri("lb://hxb-classwork"))
-                .route("hxb-classtest", r -> r.path("/hxb/classtest/**").uri("lb://hxb-classtest"))
-                .route("hxb-promote", r -> r.path("/hxb/promote/**").uri("lb://hxb-promote"))
-                .route("hxb-stats", r -> r.path("/hxb/stats/**").uri("lb://hxb-promote"))
-                .route("hxb-credit", r -> r.path("/hxb/credit/**").uri("lb://hxb-credit"))
-                .route("hxb-statistical", r -> r.path("/statistical/**").uri("lb://hxb-statistical"))
-                .build();
+        var routes = builder.routes();
+        for (var route : ROUTES) {
+            routes.route(route.getId(), r -> r.path(route.getPath() + "/**").uri("lb://" + route.getService()));
+        }
+
+        return routes.build();
+    }
+
+    /**
+     * 创建Redis消息监听容器
+     *
+     * @param factory RedisConnectionFactory
+     * @return RedisMessageListenerContainer
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory) {
+        var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
+
+    /**
+     * 获取路由表
+     *
+     * @return 路由表
+     */
+    public static List<RouteDto> getRoutes() {
+        return ROUTES;
+    }
+
+    /**
+     * 通过请求路径匹配路由
+     *
+     * @param path 请求路径
+     * @return 路由定义, 未匹配时返回null
+     */
+    public static RouteDto match(String path) {
+        for (var route : ROUTES) {
+            if (route.matches(path)) {
+                return route;
+            }
+        }
+
+        return null;
     }
 }
@@ -1,7 +1,11 @@
 package com.insight.gateway.common;
 
+import com.insight.utils.EnvUtil;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ServerWebExchange;
@@ -9,37 +13,152 @@ import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * @author 宣炳刚
  * @date 2023/6/1
- * @remark
+ * @remark 跨域过滤器, 预检请求在其他过滤器之前直接返回
  */
 
 @Order(-100)
 @Configuration
 public class GlobalCorsFilter implements WebFilter {
+    private static final String PREFIX = "insight.cors.";
+    private final EnvUtil env;
+
+    /**
+     * 跨域参数, 配置变更时整体替换, 请求处理中只读取一次
+     */
+    private volatile Settings settings;
+
+    /**
+     * 构造函数
+     *
+     * @param env EnvUtil
+     */
+    public GlobalCorsFilter(EnvUtil env) {
+        this.env = env;
+        loadSettings();
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
         var request = exchange.getRequest();
         var response = exchange.getResponse();
         var headers = response.getHeaders();
-        var origin = request.getHeaders().getFirst("Origin");
-
-        if (origin != null) {
-            headers.set("Access-Control-Allow-Origin", origin);
-            headers.set("Access-Control-Allow-Credentials", "true");
-            headers.set("Access-Control-Allow-Methods", "GET,POST,PUT,DELETE,OPTIONS");
-            headers.set("Access-Control-Allow-Headers", "*");
-            headers.set("Access-Control-Max-Age", "3600");
-            headers.set("Vary", "Origin");
+        var origin = request.getHeaders().getFirst(HttpHeaders.ORIGIN);
+        var current = settings;
+        var allowed = origin != null && current.isAllowed(origin);
+
+        // 响应内容随来源不同, 无论是否允许均须声明, 防止缓存将一个来源的响应用于其他来源
+        headers.set(HttpHeaders.VARY, HttpHeaders.ORIGIN);
+        if (allowed) {
+            headers.putAll(current.headers);
+            headers.set(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
         }
 
-        // OPTIONS预检直接返回200，不往下走鉴权逻辑
+        // OPTIONS预检直接返回, 不往下走日志及鉴权逻辑
         if (HttpMethod.OPTIONS.equals(request.getMethod())) {
-            response.setStatusCode(HttpStatus.OK);
+            response.setStatusCode(origin == null || allowed ? HttpStatus.OK : HttpStatus.FORBIDDEN);
             return response.setComplete();
         }
 
         return chain.filter(exchange);
     }
+
+    /**
+     * 配置变更时重新加载跨域参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            loadSettings();
+        }
+    }
+
+    /**
+     * 加载跨域参数并预先生成响应头
+     */
+    private void loadSettings() {
+        var set = new HashSet<String>();
+        var list = new ArrayList<String[]>();
+        var all = false;
+        for (var origin : EnvHelper.getList(env, PREFIX + "origins", "*")) {
+            if ("*".equals(origin)) {
+                all = true;
+            } else if (origin.contains("://*.")) {
+                var index = origin.indexOf("://*.");
+                list.add(new String[]{origin.substring(0, index + 3), origin.substring(index + 4)});
+            } else {
+                set.add(origin);
+            }
+        }
+
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+        headers.set(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, EnvHelper.getString(env, PREFIX + "methods", "GET,POST,PUT,DELETE,OPTIONS"));
+        headers.set(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, EnvHelper.getString(env, PREFIX + "headers", "*"));
+        headers.set(HttpHeaders.ACCESS_CONTROL_MAX_AGE, EnvHelper.getString(env, PREFIX + "maxAge", "3600"));
+
+        settings = new Settings(HttpHeaders.readOnlyHttpHeaders(headers), Set.copyOf(set), List.copyOf(list), all);
+    }
+
+    /**
+     * 跨域参数(不可变)
+     */
+    private static final class Settings {
+
+        /**
+         * 预先生成的跨域响应头(不含Allow-Origin及Vary)
+         */
+        private final HttpHeaders headers;
+
+        /**
+         * 允许的来源(精确匹配)
+         */
+        private final Set<String> origins;
+
+        /**
+         * 允许的通配子域名来源, 每项为协议前缀及域名后缀, 如 https:// 和 .example.com
+         */
+        private final List<String[]> wildcards;
+
+        /**
+         * 是否允许全部来源
+         */
+        private final boolean allowAll;
+
+        private Settings(HttpHeaders headers, Set<String> origins, List<String[]> wildcards, boolean allowAll) {
+            this.headers = headers;
+            this.origins = origins;
+            this.wildcards = wildcards;
+            this.allowAll = allowAll;
+        }
+
+        /**
+         * 来源是否在允许列表中
+         *
+         * @param origin 来源
+         * @return 是否允许
+         */
+        private boolean isAllowed(String origin) {
+            if (allowAll || origins.contains(origin)) {
+                return true;
+            }
+
+            for (var wildcard : wildcards) {
+                if (origin.startsWith(wildcard[0]) && origin.endsWith(wildcard[1])) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
 }
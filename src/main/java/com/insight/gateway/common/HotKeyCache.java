@@ -0,0 +1,303 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 热点键检测及本地近端缓存. 使用Count-Min Sketch统计每个时间窗口内Redis键的访问次数,
+ * 访问次数超过阈值的键自动提升到短有效期的本地缓存
+ */
+@Component
+public class HotKeyCache {
+    private static final String PREFIX = "insight.hotkey.";
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+
+    /**
+     * 每行哈希函数的种子, 各行使用独立的哈希值
+     */
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+    private final AtomicIntegerArray sketch = new AtomicIntegerArray(DEPTH * WIDTH);
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Set<String> hotKeys = ConcurrentHashMap.newKeySet();
+    private final EnvUtil env;
+    private final CacheStats stats;
+
+    /**
+     * 热点阈值(每个时间窗口的访问次数)
+     */
+    private volatile int threshold;
+
+    /**
+     * 本地缓存有效时间(毫秒)
+     */
+    private volatile long ttl;
+
+    /**
+     * 最大缓存数量
+     */
+    private volatile int maxSize;
+
+    /**
+     * 构造函数
+     *
+     * @param env      EnvUtil
+     * @param registry MeterRegistry
+     */
+    public HotKeyCache(EnvUtil env, MeterRegistry registry) {
+        this.env = env;
+        loadSettings();
+
+        // 键名可能含有业务标识且数量不受控, 只输出热点键数量, 具体的键通过诊断端点查看
+        stats = new CacheStats(registry, "hotkey");
+        Gauge.builder("gateway.hotkey.size", cache, Map::size).register(registry);
+        Gauge.builder("gateway.hotkey.count", hotKeys, Set::size).register(registry);
+    }
+
+    /**
+     * 读取数据, 热点键优先从本地缓存读取
+     *
+     * @param key    Redis键
+     * @param field  字段名, 整键读取时为null
+     * @param loader 从Redis读取数据的方法
+     * @param <T>    数据类型
+     * @return 数据
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, String field, Supplier<T> loader) {
+        var cacheKey = field == null ? key : key + "#" + field;
+        var value = getCached(key, cacheKey);
+        if (value != null) {
+            return (T) value;
+        }
+
+        var data = loader.get();
+        putIfHot(key, cacheKey, data);
+        return data;
+    }
+
+    /**
+     * 记录一次访问并读取本地缓存
+     *
+     * @param key      Redis键
+     * @param cacheKey 缓存键
+     * @return 缓存的数据, 不存在或已过期时返回null
+     */
+    public Object getCached(String key, String cacheKey) {
+        record(key);
+        var entry = cache.get(cacheKey);
+        if (entry == null) {
+            stats.miss();
+            return null;
+        }
+
+        if (entry.expire <= System.currentTimeMillis()) {
+            cache.remove(cacheKey, entry);
+            stats.miss();
+            return null;
+        }
+
+        stats.hit();
+        return entry.value;
+    }
+
+    /**
+     * 键为热点时写入本地缓存
+     *
+     * @param key      Redis键
+     * @param cacheKey 缓存键
+     * @param value    数据
+     */
+    public void putIfHot(String key, String cacheKey, Object value) {
+        if (value == null || estimate(key) < threshold) {
+            return;
+        }
+
+        if (cache.size() >= maxSize) {
+            var now = System.currentTimeMillis();
+            cache.values().removeIf(i -> i.expire <= now);
+            if (cache.size() >= maxSize) {
+                return;
+            }
+        }
+
+        cache.put(cacheKey, new Entry(value, System.currentTimeMillis() + ttl));
+        hotKeys.add(key);
+    }
+
+    /**
+     * 获取当前的热点键
+     *
+     * @return 热点键及当前窗口的访问次数
+     */
+    public Map<String, Integer> getHotKeys() {
+        var map = new ConcurrentHashMap<String, Integer>();
+        hotKeys.forEach(i -> map.put(i, estimate(i)));
+        return map;
+    }
+
+    /**
+     * 获取本地缓存命中统计
+     *
+     * @return 命中统计
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 开始新的统计窗口, 移除已冷却的热点键
+     */
+    @Scheduled(fixedRateString = "${insight.hotkey.window:1000}")
+    public void reset() {
+        hotKeys.removeIf(i -> estimate(i) < threshold);
+
+        for (var i = 0; i < sketch.length(); i++) {
+            sketch.set(i, 0);
+        }
+    }
+
+    /**
+     * 清空本地缓存
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * 配置变更时重新加载参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            loadSettings();
+            cache.clear();
+        }
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key Redis键
+     */
+    private void record(String key) {
+        for (var i = 0; i < DEPTH; i++) {
+            sketch.incrementAndGet(i * WIDTH + index(key, i));
+        }
+    }
+
+    /**
+     * 估算当前窗口的访问次数
+     *
+     * @param key Redis键
+     * @return 访问次数
+     */
+    private int estimate(String key) {
+        var min = Integer.MAX_VALUE;
+        for (var i = 0; i < DEPTH; i++) {
+            min = Math.min(min, sketch.get(i * WIDTH + index(key, i)));
+        }
+
+        return min;
+    }
+
+    /**
+     * 计算指定行的列序号
+     *
+     * @param key Redis键
+     * @param row 行序号
+     * @return 列序号
+     */
+    private static int index(String key, int row) {
+        return hash(key, SEEDS[row]) & (WIDTH - 1);
+    }
+
+    /**
+     * 以指定种子计算键的MurmurHash3(32位)哈希值, 每两个字符作为一个数据块
+     *
+     * @param key  Redis键
+     * @param seed 种子
+     * @return 哈希值
+     */
+    static int hash(String key, int seed) {
+        var h = seed;
+        var length = key.length();
+        for (var i = 1; i < length; i += 2) {
+            h = mixHash(h, mixBlock(key.charAt(i - 1) | (key.charAt(i) << 16)));
+        }
+
+        if ((length & 1) == 1) {
+            h ^= mixBlock(key.charAt(length - 1));
+        }
+
+        h ^= length * 2;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * 混合数据块
+     *
+     * @param k 数据块
+     * @return 混合后的数据块
+     */
+    private static int mixBlock(int k) {
+        k *= 0xCC9E2D51;
+        k = Integer.rotateLeft(k, 15);
+        return k * 0x1B873593;
+    }
+
+    /**
+     * 将数据块合并到哈希值
+     *
+     * @param h 哈希值
+     * @param k 混合后的数据块
+     * @return 哈希值
+     */
+    private static int mixHash(int h, int k) {
+        h ^= k;
+        h = Integer.rotateLeft(h, 13);
+        return h * 5 + 0xE6546B64;
+    }
+
+    /**
+     * 加载参数
+     */
+    private void loadSettings() {
+        threshold = EnvHelper.getInt(env, PREFIX + "threshold", 100);
+        ttl = EnvHelper.getLong(env, PREFIX + "ttl", 1000);
+        maxSize = EnvHelper.getInt(env, PREFIX + "maxSize", 1000);
+    }
+
+    /**
+     * 缓存项
+     */
+    private static final class Entry {
+        private final Object value;
+        private final long expire;
+
+        private Entry(Object value, long expire) {
+            this.value = value;
+            this.expire = expire;
+        }
+    }
+}
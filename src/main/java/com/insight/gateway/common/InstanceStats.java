@@ -0,0 +1,165 @@
+package com.insight.gateway.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 服务实例调用统计(峰值EWMA延迟及在途请求数)
+ */
+public class InstanceStats {
+
+    /**
+     * 实例地址(host:port)
+     */
+    private final String address;
+
+    /**
+     * 在途请求数
+     */
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /**
+     * 峰值EWMA延迟(纳秒, double的位表示)
+     */
+    private final AtomicLong ewma;
+
+    /**
+     * 最后一次采样时间(纳秒)
+     */
+    private final AtomicLong lastSample = new AtomicLong(System.nanoTime());
+
+    /**
+     * 连续失败次数
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * 摘除截止时间(毫秒)
+     */
+    private volatile long ejectedUntil;
+
+    /**
+     * 最后一次出现在服务实例列表中的时间(毫秒)
+     */
+    private volatile long lastSeen = System.currentTimeMillis();
+
+    /**
+     * 构造函数
+     *
+     * @param address        实例地址
+     * @param initialLatency 无采样时的初始延迟(纳秒)
+     */
+    public InstanceStats(String address, long initialLatency) {
+        this.address = address;
+        this.ewma = new AtomicLong(Double.doubleToLongBits(initialLatency));
+    }
+
+    /**
+     * 请求开始
+     */
+    public void start() {
+        inflight.incrementAndGet();
+    }
+
+    /**
+     * 请求结束
+     *
+     * @param rtt   请求延迟(纳秒), 小于0时不采样
+     * @param decay EWMA衰减时间常数(纳秒)
+     */
+    public void complete(long rtt, long decay) {
+        inflight.decrementAndGet();
+        if (rtt < 0) {
+            return;
+        }
+
+        var now = System.nanoTime();
+        var elapsed = Math.max(0, now - lastSample.getAndSet(now));
+        var weight = Math.exp(-(double) elapsed / decay);
+        while (true) {
+            var bits = ewma.get();
+            var current = Double.longBitsToDouble(bits) * weight;
+
+            // 延迟高于衰减后的当前值时立即采用峰值, 否则与当前值加权平均
+            var value = rtt > current ? rtt : current + rtt * (1 - weight);
+            if (ewma.compareAndSet(bits, Double.doubleToLongBits(value))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 记录调用结果, 连续失败次数达到阈值时临时摘除实例
+     *
+     * @param failed    是否失败
+     * @param threshold 连续失败阈值
+     * @param ejectTime 摘除时长(毫秒)
+     */
+    public void record(boolean failed, int threshold, long ejectTime) {
+        if (!failed) {
+            failures.set(0);
+            return;
+        }
+
+        if (failures.incrementAndGet() >= threshold) {
+            failures.set(0);
+            ejectedUntil = System.currentTimeMillis() + ejectTime;
+        }
+    }
+
+    /**
+     * 获取选择代价(EWMA延迟 × (在途请求数 + 1)). 延迟按距最后一次采样的时间衰减,
+     * 一次延迟峰值不会使空闲的实例一直处于高代价
+     *
+     * @param decay EWMA衰减时间常数(纳秒)
+     * @return 选择代价
+     */
+    public double getCost(long decay) {
+        return getLatency(decay) * (inflight.get() + 1);
+    }
+
+    /**
+     * 获取按时间衰减后的EWMA延迟
+     *
+     * @param decay EWMA衰减时间常数(纳秒)
+     * @return 延迟(纳秒)
+     */
+    public double getLatency(long decay) {
+        var elapsed = Math.max(0, System.nanoTime() - lastSample.get());
+        return Double.longBitsToDouble(ewma.get()) * Math.exp(-(double) elapsed / decay);
+    }
+
+    /**
+     * 记录实例出现在服务实例列表中
+     */
+    public void touch() {
+        lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * 实例是否已被摘除
+     *
+     * @return 是否已被摘除
+     */
+    public boolean isEjected() {
+        return ejectedUntil > System.currentTimeMillis();
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public double getLatency() {
+        return Double.longBitsToDouble(ewma.get());
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+}
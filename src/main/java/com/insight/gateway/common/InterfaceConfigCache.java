@@ -0,0 +1,184 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import com.insight.utils.Json;
+import com.insight.utils.Util;
+import com.insight.utils.http.HttpClient;
+import com.insight.utils.pojo.auth.InterfaceDto;
+import com.insight.utils.redis.HashOps;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 接口配置本地缓存, 通过Redis消息通知及定时任务在后台刷新
+ */
+@Order(0)
+@Component
+public class InterfaceConfigCache implements ApplicationRunner {
+    private static final String KEY = "Config:Interface";
+    private static final String PREFIX = "insight.interface.";
+    private static final Pattern PATH_PARAM = Pattern.compile("/([0-9a-f]{32}|[0-9]{1,19})");
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final AtomicLong loadTime = new AtomicLong();
+    private final EnvUtil env;
+    private final BlockingOffload offload;
+    private final CacheStats stats;
+
+    /**
+     * 接口配置表(键为 方法:URL 的MD5值)
+     */
+    private volatile Map<String, InterfaceDto> configs = Map.of();
+
+    /**
+     * 构造函数
+     *
+     * @param env       EnvUtil
+     * @param registry  MeterRegistry
+     * @param offload   阻塞调用卸载执行器
+     * @param container Redis消息监听容器
+     */
+    public InterfaceConfigCache(EnvUtil env, MeterRegistry registry, BlockingOffload offload, RedisMessageListenerContainer container) {
+        this.env = env;
+        this.offload = offload;
+        stats = new CacheStats(registry, "interface");
+
+        var channel = EnvHelper.getString(env, PREFIX + "channel", KEY + ":Changed");
+        container.addMessageListener((message, pattern) -> reload(), new ChannelTopic(channel));
+    }
+
+    /**
+     * 启动时加载接口配置, 失败时按指数退避重试直至成功. 加载完成前不会发布就绪状态, 注册中心的健康检查不通过
+     *
+     * @param args ApplicationArguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        var backoff = EnvHelper.getLong(env, PREFIX + "retryDelay", 1000);
+        var maxBackoff = EnvHelper.getLong(env, PREFIX + "maxRetryDelay", 30000);
+        while (!load()) {
+            logger.warn("接口配置加载失败, {} ms后重试", backoff);
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            backoff = Math.min(backoff * 2, maxBackoff);
+        }
+    }
+
+    /**
+     * 通过匹配URL获取接口配置, 未知URL触发后台重新生成接口配置
+     *
+     * @param method 请求方法
+     * @param uri    请求URL
+     * @return 接口配置
+     */
+    public InterfaceDto get(HttpMethod method, String uri) {
+        var key = method.name() + ":" + normalize(uri);
+        var config = configs.get(Util.md5(key));
+        if (config != null) {
+            stats.hit();
+            return config;
+        }
+
+        stats.miss();
+        requestLoad();
+        return null;
+    }
+
+    /**
+     * 从Redis重新加载接口配置表
+     */
+    @Scheduled(fixedDelayString = "${insight.interface.reloadInterval:300000}", initialDelayString = "${insight.interface.reloadInterval:300000}")
+    public void reload() {
+        load();
+    }
+
+    /**
+     * 从Redis加载接口配置表, 失败时保留原配置表
+     *
+     * @return 是否成功
+     */
+    private boolean load() {
+        try {
+            var map = new HashMap<String, InterfaceDto>();
+            HashOps.entries(KEY).forEach((k, v) -> {
+                var config = Json.toBean(v.toString(), InterfaceDto.class);
+                if (config != null) {
+                    map.put(k.toString(), config);
+                }
+            });
+
+            configs = map;
+            logger.info("已加载 {} 个接口配置", map.size());
+            return true;
+        } catch (Exception ex) {
+            logger.error("加载接口配置失败: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 将URL中的路径参数替换为占位符, 与Config:Interface中的接口URL格式一致
+     *
+     * @param uri 请求URL
+     * @return 规范化的URL
+     */
+    public static String normalize(String uri) {
+        return PATH_PARAM.matcher(uri).replaceAll("/{}");
+    }
+
+    /**
+     * 获取全部接口配置
+     *
+     * @return 接口配置表
+     */
+    public Map<String, InterfaceDto> getConfigs() {
+        return configs;
+    }
+
+    /**
+     * 获取接口配置缓存命中统计
+     *
+     * @return 命中统计
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 通知配置服务重新生成接口配置, 每5分钟最多触发一次, 在后台执行
+     */
+    private void requestLoad() {
+        var now = System.currentTimeMillis();
+        var last = loadTime.get();
+        if (now - last < TimeUnit.MINUTES.toMillis(5) || !loadTime.compareAndSet(last, now)) {
+            return;
+        }
+
+        offload.call(() -> {
+            HttpClient.get(env.getValue("insight.loadInterface"));
+            reload();
+            return true;
+        }).subscribe(null, ex -> logger.error("触发接口配置加载失败: {}", ex.getMessage()));
+    }
+}
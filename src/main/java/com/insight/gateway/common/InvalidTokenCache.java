@@ -0,0 +1,181 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import com.insight.utils.Util;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 无效Token本地缓存, 短时间内重复出现的无效Token直接拒绝, 不再解析及访问Redis
+ */
+@Component
+public class InvalidTokenCache {
+    private static final String PREFIX = "insight.token.";
+
+    /**
+     * 缓存已满时每次最多检查的缓存项数量
+     */
+    private static final int EVICT_SCAN = 16;
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+    private final EnvUtil env;
+    private final CacheStats stats;
+
+    /**
+     * 缓存有效时间(毫秒)
+     */
+    private volatile long ttl;
+
+    /**
+     * 最大缓存数量
+     */
+    private volatile int maxSize;
+
+    /**
+     * 构造函数
+     *
+     * @param env      EnvUtil
+     * @param registry MeterRegistry
+     */
+    public InvalidTokenCache(EnvUtil env, MeterRegistry registry) {
+        this.env = env;
+        loadSettings();
+
+        stats = new CacheStats(registry, "token.invalid");
+        Gauge.builder("gateway.token.invalid.size", tokens, Map::size).register(registry);
+    }
+
+    /**
+     * 访问令牌是否已知无效, 检查结果保存在访问令牌中, 同一请求只检查一次
+     *
+     * @param accessToken 访问令牌
+     * @return 是否无效
+     */
+    public boolean contains(AccessToken accessToken) {
+        var invalid = accessToken.getInvalid();
+        if (invalid == null) {
+            invalid = accessToken.isPresent() && contains(accessToken.getToken());
+            accessToken.setInvalid(invalid);
+        }
+
+        return invalid;
+    }
+
+    /**
+     * Token是否已知无效
+     *
+     * @param token 访问令牌
+     * @return 是否无效
+     */
+    public boolean contains(String token) {
+        var key = Util.md5(token);
+        var expire = tokens.get(key);
+        if (expire == null) {
+            stats.miss();
+            return false;
+        }
+
+        if (expire <= System.currentTimeMillis()) {
+            tokens.remove(key, expire);
+            stats.miss();
+            return false;
+        }
+
+        stats.hit();
+        return true;
+    }
+
+    /**
+     * 记录无效Token, 缓存已满时先淘汰一项, 淘汰的开销与缓存大小无关
+     *
+     * @param token 访问令牌
+     */
+    public void add(String token) {
+        var now = System.currentTimeMillis();
+        if (tokens.size() >= maxSize) {
+            evict(now);
+        }
+
+        tokens.put(Util.md5(token), now + ttl);
+    }
+
+    /**
+     * 定时清理过期的缓存项, 在调度线程中执行
+     */
+    @Scheduled(fixedDelayString = "${insight.token.sweepInterval:10000}")
+    public void sweep() {
+        var now = System.currentTimeMillis();
+        tokens.values().removeIf(i -> i <= now);
+    }
+
+    /**
+     * 获取本地缓存命中统计
+     *
+     * @return 命中统计
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 清空本地缓存
+     */
+    public void clear() {
+        tokens.clear();
+    }
+
+    /**
+     * 配置变更时重新加载参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            loadSettings();
+            tokens.clear();
+        }
+    }
+
+    /**
+     * 淘汰缓存项: 最多检查EVICT_SCAN项并移除其中已过期的, 没有过期项时移除检查到的第一项
+     *
+     * @param now 当前时间
+     */
+    private void evict(long now) {
+        var iterator = tokens.entrySet().iterator();
+        String first = null;
+        var removed = false;
+        for (var i = 0; i < EVICT_SCAN && iterator.hasNext(); i++) {
+            var entry = iterator.next();
+            if (first == null) {
+                first = entry.getKey();
+            }
+
+            if (entry.getValue() <= now) {
+                iterator.remove();
+                removed = true;
+            }
+        }
+
+        if (!removed && first != null) {
+            tokens.remove(first);
+        }
+    }
+
+    /**
+     * 加载参数
+     */
+    private void loadSettings() {
+        ttl = EnvHelper.getLong(env, PREFIX + "invalidTtl", 10000);
+        maxSize = EnvHelper.getInt(env, PREFIX + "invalidMax", 100000);
+    }
+}
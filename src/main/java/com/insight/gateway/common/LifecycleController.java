@@ -0,0 +1,169 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cloud.client.serviceregistry.AbstractAutoServiceRegistration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 生命周期控制器, 启动时预热过滤器链, 关闭时先从注册中心注销再排空进行中的请求
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class LifecycleController implements ApplicationRunner, SmartLifecycle {
+    private static final String PREFIX = "insight.lifecycle.";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final EnvUtil env;
+    private final ApplicationEventPublisher publisher;
+    private final ObjectProvider<AbstractAutoServiceRegistration<?>> registrations;
+    private final LoadBalancerStats stats;
+
+    /**
+     * 是否运行中
+     */
+    private volatile boolean running;
+
+    /**
+     * 构造函数
+     *
+     * @param env             EnvUtil
+     * @param publisher       ApplicationEventPublisher
+     * @param registrations   服务自动注册
+     * @param stats           实例统计
+     */
+    public LifecycleController(EnvUtil env, ApplicationEventPublisher publisher, ObjectProvider<AbstractAutoServiceRegistration<?>> registrations,
+                               LoadBalancerStats stats) {
+        this.env = env;
+        this.publisher = publisher;
+        this.registrations = registrations;
+        this.stats = stats;
+    }
+
+    /**
+     * 启动预热: 以GET请求访问配置的预热地址(insight.lifecycle.warmupUrls), 经过完整的过滤器链(令牌解码、鉴权及转发到后端服务).
+     * 预热请求会计入限流及租户配额并转发到后端服务, 因此默认不预热, 须由运维指定无副作用的地址并设置请求数.
+     * 配置了服务令牌(insight.lifecycle.warmupToken)时携带该令牌. 预热在就绪状态发布之前完成, 健康检查通过前不会接收流量
+     *
+     * @param args ApplicationArguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        var count = EnvHelper.getInt(env, PREFIX + "warmupRequests", 0);
+        var port = env.getValue("local.server.port");
+        var token = EnvHelper.getString(env, PREFIX + "warmupToken", null);
+        var verify = token != null && !token.isEmpty();
+        var targets = EnvHelper.getList(env, PREFIX + "warmupUrls", "");
+        if (count <= 0 || port == null || targets.isEmpty()) {
+            return;
+        }
+
+        var client = WebClient.create("http://127.0.0.1:" + port);
+        var concurrency = EnvHelper.getInt(env, PREFIX + "warmupConcurrency", 16);
+        var timeout = Duration.ofMillis(EnvHelper.getLong(env, PREFIX + "warmupTimeout", 30000));
+        var completed = new AtomicInteger();
+        var start = System.currentTimeMillis();
+        try {
+            Flux.range(0, count).flatMap(i -> {
+                var url = targets.get(i % targets.size());
+                return client.method(HttpMethod.GET).uri(url)
+                        .headers(headers -> {
+                            if (verify) {
+                                headers.set("Authorization", token);
+                            }
+                        })
+                        .header("Origin", "http://localhost")
+                        .exchangeToMono(ClientResponse::releaseBody)
+                        .doOnSuccess(v -> completed.incrementAndGet())
+                        .onErrorResume(ex -> Mono.empty());
+            }, concurrency).then().block(timeout);
+        } catch (Exception ex) {
+            logger.warn("预热未完成: {}", ex.getMessage());
+        }
+
+        logger.info("预热完成, 共 {} 个请求, 耗时 {} ms", completed.get(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * 关闭: 标记为不可用并从注册中心注销, 等待调用方刷新实例列表后排空进行中的请求
+     * 之后由Web服务器的优雅关闭处理剩余连接
+     */
+    @Override
+    public void stop() {
+        running = false;
+        AvailabilityChangeEvent.publish(publisher, this, ReadinessState.REFUSING_TRAFFIC);
+        registrations.ifAvailable(AbstractAutoServiceRegistration::stop);
+        logger.info("已从注册中心注销, 开始排空请求");
+
+        sleep(EnvHelper.getLong(env, PREFIX + "drainDelay", 5000));
+        var deadline = System.currentTimeMillis() + EnvHelper.getLong(env, PREFIX + "drainTimeout", 20000);
+        var inflight = getInflight();
+        while (inflight > 0 && System.currentTimeMillis() < deadline) {
+            sleep(100);
+            inflight = getInflight();
+        }
+
+        logger.info("请求排空完成, 剩余进行中请求: {}", inflight);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 最先关闭, 在Web服务器优雅关闭之前执行
+     *
+     * @return 阶段
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * 获取转发到后端服务的进行中请求数
+     *
+     * @return 进行中请求数
+     */
+    private int getInflight() {
+        return stats.getStats().values().stream().mapToInt(InstanceStats::getInflight).sum();
+    }
+
+    /**
+     * 等待指定时间
+     *
+     * @param millis 毫秒数
+     */
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
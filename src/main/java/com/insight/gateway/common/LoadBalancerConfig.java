@@ -0,0 +1,43 @@
+package com.insight.gateway.common;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 负载均衡客户端配置, 由@LoadBalancerClients引用, 不能被组件扫描加载
+ */
+public class LoadBalancerConfig {
+
+    /**
+     * 创建服务实例列表提供者
+     *
+     * @param environment Environment
+     * @param cache       服务实例缓存
+     * @return ServiceInstanceListSupplier
+     */
+    @Bean
+    public ServiceInstanceListSupplier serviceInstanceListSupplier(Environment environment, DiscoveryCache cache) {
+        var name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new CachedInstanceListSupplier(name, cache);
+    }
+
+    /**
+     * 创建负载均衡器
+     *
+     * @param environment Environment
+     * @param factory     LoadBalancerClientFactory
+     * @param stats       负载均衡实例统计
+     * @return ReactorLoadBalancer
+     */
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment, LoadBalancerClientFactory factory, LoadBalancerStats stats) {
+        var name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(name, factory.getLazyProvider(name, ServiceInstanceListSupplier.class), stats);
+    }
+}
@@ -0,0 +1,166 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 负载均衡实例统计
+ */
+@Component
+public class LoadBalancerStats {
+    private static final String PREFIX = "insight.lb.";
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+    private final EnvUtil env;
+    private final MeterRegistry registry;
+
+    private volatile long initialLatency;
+    private volatile long decay;
+    private volatile int ejectFailures;
+    private volatile long ejectTime;
+    private volatile double maxEjectRatio;
+    private volatile long idleTime;
+
+    /**
+     * 构造函数
+     *
+     * @param env      EnvUtil
+     * @param registry MeterRegistry
+     */
+    public LoadBalancerStats(EnvUtil env, MeterRegistry registry) {
+        this.env = env;
+        this.registry = registry;
+        loadSettings();
+    }
+
+    /**
+     * 获取实例统计
+     *
+     * @param instance 服务实例
+     * @return 实例统计
+     */
+    public InstanceStats get(ServiceInstance instance) {
+        var address = instance.getHost() + ":" + instance.getPort();
+        return stats.computeIfAbsent(address, k -> {
+            var stat = new InstanceStats(k, initialLatency);
+            var tags = List.of(Tag.of("service", instance.getServiceId()), Tag.of("instance", k));
+            meters.put(k, List.of(
+                    Gauge.builder("gateway.lb.inflight", stat, InstanceStats::getInflight).tags(tags).register(registry),
+                    Gauge.builder("gateway.lb.latency", stat, i -> i.getLatency(decay)).tags(tags).baseUnit("nanoseconds").register(registry)));
+            return stat;
+        });
+    }
+
+    /**
+     * 获取实例的选择代价
+     *
+     * @param instance 服务实例
+     * @return 选择代价
+     */
+    public double getCost(ServiceInstance instance) {
+        return get(instance).getCost(decay);
+    }
+
+    /**
+     * 请求结束时更新实例统计
+     *
+     * @param stat   实例统计
+     * @param rtt    请求延迟(纳秒), 小于0时不采样
+     * @param failed 是否失败
+     */
+    public void complete(InstanceStats stat, long rtt, boolean failed) {
+        stat.complete(rtt, decay);
+        if (rtt >= 0) {
+            stat.record(failed, ejectFailures, ejectTime);
+        }
+    }
+
+    /**
+     * 过滤已摘除的实例, 摘除比例不超过上限
+     *
+     * @param instances 服务实例集合
+     * @return 可用实例集合
+     */
+    public List<ServiceInstance> available(List<ServiceInstance> instances) {
+        var list = new ArrayList<ServiceInstance>(instances.size());
+        for (var instance : instances) {
+            var stat = get(instance);
+            stat.touch();
+            if (!stat.isEjected()) {
+                list.add(instance);
+            }
+        }
+
+        return list.size() < instances.size() * (1 - maxEjectRatio) ? instances : list;
+    }
+
+    /**
+     * 获取全部实例统计
+     *
+     * @return 实例统计集合
+     */
+    public Map<String, InstanceStats> getStats() {
+        return stats;
+    }
+
+    /**
+     * 清理已不在服务实例列表中的实例统计及其监控指标, 避免实例更替后统计数据无限增长
+     */
+    @Scheduled(fixedDelayString = "${insight.lb.pruneInterval:60000}")
+    public void prune() {
+        var expire = System.currentTimeMillis() - idleTime;
+        stats.entrySet().removeIf(e -> {
+            var stat = e.getValue();
+            if (stat.getLastSeen() > expire || stat.getInflight() > 0) {
+                return false;
+            }
+
+            var list = meters.remove(e.getKey());
+            if (list != null) {
+                list.forEach(registry::remove);
+            }
+
+            return true;
+        });
+    }
+
+    /**
+     * 配置变更时重新加载负载均衡参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            loadSettings();
+        }
+    }
+
+    /**
+     * 加载负载均衡参数
+     */
+    private void loadSettings() {
+        initialLatency = TimeUnit.MILLISECONDS.toNanos(EnvHelper.getLong(env, PREFIX + "initialLatency", 100));
+        decay = TimeUnit.MILLISECONDS.toNanos(EnvHelper.getLong(env, PREFIX + "decay", 10000));
+        ejectFailures = EnvHelper.getInt(env, PREFIX + "ejectFailures", 5);
+        ejectTime = EnvHelper.getLong(env, PREFIX + "ejectTime", 30000);
+        maxEjectRatio = EnvHelper.getDouble(env, PREFIX + "maxEjectRatio", 0.5);
+        idleTime = EnvHelper.getLong(env, PREFIX + "idleTime", 300000);
+    }
+}
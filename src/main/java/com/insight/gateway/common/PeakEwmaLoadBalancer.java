@@ -0,0 +1,88 @@
+package com.insight.gateway.common;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 基于峰值EWMA延迟的负载均衡器(随机选取两个实例, 取代价较低者)
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final LoadBalancerStats stats;
+
+    /**
+     * 构造函数
+     *
+     * @param serviceId        服务名称
+     * @param supplierProvider 服务实例列表提供者
+     * @param stats            负载均衡实例统计
+     */
+    public PeakEwmaLoadBalancer(String serviceId, ObjectProvider<ServiceInstanceListSupplier> supplierProvider, LoadBalancerStats stats) {
+        this.serviceId = serviceId;
+        this.supplierProvider = supplierProvider;
+        this.stats = stats;
+    }
+
+    /**
+     * 选择服务实例
+     *
+     * @param request 负载均衡请求
+     * @return 选择结果
+     */
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        var supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    /**
+     * 从实例列表中选择代价最低的实例
+     *
+     * @param instances 服务实例集合
+     * @return 选择结果
+     */
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+
+        var list = stats.available(instances);
+        if (list.size() == 1) {
+            return new DefaultResponse(list.get(0));
+        }
+
+        var random = ThreadLocalRandom.current();
+        var first = random.nextInt(list.size());
+        var second = random.nextInt(list.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        var a = list.get(first);
+        var b = list.get(second);
+        return new DefaultResponse(stats.getCost(a) <= stats.getCost(b) ? a : b);
+    }
+
+    /**
+     * 获取服务名称
+     *
+     * @return 服务名称
+     */
+    public String getServiceId() {
+        return serviceId;
+    }
+}
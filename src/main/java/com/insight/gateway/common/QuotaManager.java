@@ -0,0 +1,267 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import com.insight.utils.pojo.auth.LoginInfo;
+import com.insight.utils.redis.HashOps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 租户、应用及用户的分级配额, 使用本地令牌桶限流
+ * 集群配额从Redis定期同步, 按网关节点数平均分配到各节点
+ */
+@Component
+public class QuotaManager {
+    private static final String KEY = "Config:Quota";
+    private static final String PREFIX = "insight.quota.";
+    private static final String[] LEVELS = {"tenant", "app", "user"};
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final EnvUtil env;
+    private final MeterRegistry registry;
+    private final DiscoveryCache discoveryCache;
+
+    /**
+     * Redis中配置的集群配额(键为 级别:ID, 值为每秒请求数)
+     */
+    private volatile Map<String, Double> quotas = Map.of();
+
+    /**
+     * 网关节点数
+     */
+    private volatile int nodes = 1;
+
+    /**
+     * 是否启用配额
+     */
+    private volatile boolean enabled;
+
+    /**
+     * 各级别默认集群配额(每秒请求数, 0为不限制)
+     */
+    private volatile double[] defaults;
+
+    /**
+     * 桶容量相当于多少秒的配额
+     */
+    private volatile double burst;
+
+    /**
+     * 构造函数
+     *
+     * @param env            EnvUtil
+     * @param registry       MeterRegistry
+     * @param discoveryCache 服务实例缓存
+     */
+    public QuotaManager(EnvUtil env, MeterRegistry registry, DiscoveryCache discoveryCache) {
+        this.env = env;
+        this.registry = registry;
+        this.discoveryCache = discoveryCache;
+        loadSettings();
+    }
+
+    /**
+     * 依次获取租户、应用及用户配额, 任一级别不足时归还已获取的配额
+     *
+     * @param loginInfo 用户登录信息
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(LoginInfo loginInfo) {
+        if (!enabled || loginInfo == null) {
+            return true;
+        }
+
+        var tenantId = loginInfo.getTenantId() == null ? null : loginInfo.getTenantId().toString();
+        var ids = new Object[]{loginInfo.getTenantId(), loginInfo.getAppId(), loginInfo.getId()};
+        var acquired = new ArrayList<TokenBucket>(LEVELS.length);
+        for (var i = 0; i < LEVELS.length; i++) {
+            if (ids[i] == null) {
+                continue;
+            }
+
+            var bucket = getBucket(i, ids[i].toString());
+            if (bucket == null) {
+                continue;
+            }
+
+            if (!bucket.tryAcquire()) {
+                acquired.forEach(TokenBucket::release);
+                count(tenantId, LEVELS[i], "rejected");
+                return false;
+            }
+
+            acquired.add(bucket);
+        }
+
+        count(tenantId, "all", "allowed");
+        return true;
+    }
+
+    /**
+     * 从Redis同步集群配额及网关节点数, 并清理长时间未使用的令牌桶
+     */
+    @Scheduled(fixedDelayString = "${insight.quota.syncInterval:10000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            var map = new HashMap<String, Double>();
+            HashOps.entries(KEY).forEach((k, v) -> {
+                try {
+                    map.put(k.toString(), Double.parseDouble(v.toString()));
+                } catch (NumberFormatException ex) {
+                    logger.warn("无效的配额配置: {}={}", k, v);
+                }
+            });
+            quotas = map;
+        } catch (Exception ex) {
+            logger.warn("同步集群配额失败, 继续使用原配额: {}", ex.getMessage());
+        }
+
+        try {
+            var service = env.getValue("spring.application.name");
+            var list = discoveryCache.getInstances(service).block(Duration.ofSeconds(5));
+            nodes = list == null || list.isEmpty() ? 1 : list.size();
+        } catch (Exception ex) {
+            logger.warn("获取网关节点数失败: {}", ex.getMessage());
+        }
+
+        var expire = System.currentTimeMillis() - EnvHelper.getLong(env, PREFIX + "idleTime", 600000);
+        buckets.entrySet().removeIf(e -> e.getValue().getAccessTime() < expire);
+        buckets.forEach((key, bucket) -> {
+            var index = key.indexOf(':');
+            var rate = getRate(levelOf(key.substring(0, index)), key);
+            if (rate > 0) {
+                bucket.configure(rate, Math.max(1, rate * burst));
+            } else {
+                buckets.remove(key);
+            }
+        });
+    }
+
+    /**
+     * 配置变更时重新加载参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            loadSettings();
+            sync();
+        }
+    }
+
+    /**
+     * 获取全部令牌桶
+     *
+     * @return 令牌桶集合
+     */
+    public Map<String, TokenBucket> getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * 获取令牌桶, 未配置配额时返回null
+     *
+     * @param level 级别序号
+     * @param id    租户/应用/用户ID
+     * @return 令牌桶
+     */
+    private TokenBucket getBucket(int level, String id) {
+        var key = LEVELS[level] + ":" + id;
+        var bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        var rate = getRate(level, key);
+        if (rate <= 0) {
+            return null;
+        }
+
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(rate, Math.max(1, rate * burst)));
+    }
+
+    /**
+     * 获取本节点的配额
+     *
+     * @param level 级别序号
+     * @param key   级别:ID
+     * @return 每秒请求数
+     */
+    private double getRate(int level, String key) {
+        var quota = quotas.get(key);
+        if (quota == null) {
+            quota = level < 0 ? 0 : defaults[level];
+        }
+
+        return quota / nodes;
+    }
+
+    /**
+     * 获取级别序号
+     *
+     * @param level 级别名称
+     * @return 级别序号
+     */
+    private int levelOf(String level) {
+        for (var i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i].equals(level)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * 按租户记录配额计数
+     *
+     * @param tenantId 租户ID
+     * @param level    级别名称
+     * @param result   结果
+     */
+    private void count(String tenantId, String level, String result) {
+        var tenant = tenantId == null ? "none" : tenantId;
+        var key = tenant + ":" + level + ":" + result;
+        counters.computeIfAbsent(key, k -> Counter.builder("gateway.quota." + result)
+                .tags("tenant", tenant, "level", level)
+                .register(registry)).increment();
+    }
+
+    /**
+     * 加载参数
+     */
+    private void loadSettings() {
+        enabled = EnvHelper.getBoolean(env, PREFIX + "enabled", false);
+        burst = EnvHelper.getDouble(env, PREFIX + "burst", 1);
+
+        var values = new double[LEVELS.length];
+        for (var i = 0; i < LEVELS.length; i++) {
+            values[i] = EnvHelper.getDouble(env, PREFIX + LEVELS[i] + "Rate", 0);
+        }
+
+        defaults = values;
+        if (!enabled) {
+            buckets.clear();
+        }
+    }
+}
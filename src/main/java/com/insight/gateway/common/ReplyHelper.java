@@ -3,6 +3,10 @@ package com.insight.gateway.common;
 import com.insight.utils.Util;
 import com.insight.utils.pojo.base.Reply;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author 作者
  * @date 2017年9月5日
@@ -11,51 +15,45 @@ import com.insight.utils.pojo.base.Reply;
 public final class ReplyHelper {
 
     /**
-     * 未授权
+     * 按服务生成的Reply模板(键为 错误代码:服务名称)
      */
-    private static final Reply NO_AUTH_REPLY = new Reply();
+    private static final Map<String, ReplyTemplate> TEMPLATES = new ConcurrentHashMap<>();
+    private static final int MAX_TEMPLATES = 256;
 
     /**
-     * 非法Token
+     * 未授权
      */
-    private static final Reply INVALID_TOKEN_REPLY = new Reply();
+    public static final ReplyTemplate NO_AUTH = new ReplyTemplate(403, "未授权");
 
     /**
-     * 未授权
+     * 账户被禁止使用
      */
-    private static final Reply FORBID_REPLY = new Reply();
+    public static final ReplyTemplate FORBID = new ReplyTemplate(413, "账户被禁止使用");
 
     /**
-     * 访问过于频繁
+     * 非法Token
      */
-    private static final Reply TOO_OFTEN_REPLY = new Reply();
+    public static final ReplyTemplate INVALID_TOKEN = new ReplyTemplate(421, "无效凭证");
 
     /**
      * Token过期
      */
-    private static final Reply EXPIRED_TOKEN_REPLY = new Reply();
-
-    static {
-        //
-        NO_AUTH_REPLY.setCode(403);
-        NO_AUTH_REPLY.setMessage("未授权");
+    public static final ReplyTemplate EXPIRED_TOKEN = new ReplyTemplate(422, "凭证过期，需刷新");
 
-        //forbidden
-        FORBID_REPLY.setCode(413);
-        FORBID_REPLY.setMessage("账户被禁止使用");
-
-        //invalid token
-        INVALID_TOKEN_REPLY.setCode(421);
-        INVALID_TOKEN_REPLY.setMessage("无效凭证");
+    /**
+     * 访问过于频繁
+     */
+    public static final ReplyTemplate TOO_OFTEN = new ReplyTemplate(490, "您请求过于频繁，请稍后重试！");
 
-        //expired token
-        EXPIRED_TOKEN_REPLY.setCode(422);
-        EXPIRED_TOKEN_REPLY.setMessage("凭证过期，需刷新");
+    /**
+     * 服务繁忙
+     */
+    public static final ReplyTemplate SERVICE_BUSY = new ReplyTemplate(503, "服务繁忙，请稍后重试！");
 
-        //请求过于频繁
-        TOO_OFTEN_REPLY.setCode(490);
-        TOO_OFTEN_REPLY.setMessage("您请求过于频繁，请稍后重试！");
-    }
+    /**
+     * 提交数据临时Token无效
+     */
+    public static final ReplyTemplate INVALID_SUBMIT_TOKEN = new ReplyTemplate(400, "SubmitToken不存在");
 
     /**
      * 请求成功
@@ -86,6 +84,48 @@ public final class ReplyHelper {
         return reply;
     }
 
+    /**
+     * 服务繁忙
+     *
+     * @param requestId 请求ID
+     * @return Reply
+     */
+    public static Reply serviceBusy(String requestId) {
+        return SERVICE_BUSY.create(requestId);
+    }
+
+    /**
+     * 提交数据临时Token无效
+     *
+     * @param requestId 请求ID
+     * @return Reply
+     */
+    public static Reply invalidSubmitToken(String requestId) {
+        return INVALID_SUBMIT_TOKEN.create(requestId);
+    }
+
+    /**
+     * 服务不可用
+     *
+     * @param requestId 请求ID
+     * @param service   服务名称
+     * @return Reply
+     */
+    public static Reply unavailable(String requestId, String service) {
+        return template(503, service, "服务暂不可用，请稍后重试: " + service).create(requestId);
+    }
+
+    /**
+     * 服务响应超时
+     *
+     * @param requestId 请求ID
+     * @param service   服务名称
+     * @return Reply
+     */
+    public static Reply timeout(String requestId, String service) {
+        return template(504, service, "服务响应超时: " + service).create(requestId);
+    }
+
     /**
      * 未授权
      *
@@ -93,8 +133,7 @@ public final class ReplyHelper {
      * @return Reply
      */
     public static Reply noAuth(String requestId) {
-        NO_AUTH_REPLY.setOption(requestId);
-        return NO_AUTH_REPLY;
+        return NO_AUTH.create(requestId);
     }
 
     /**
@@ -104,8 +143,7 @@ public final class ReplyHelper {
      * @return Reply
      */
     public static Reply forbid(String requestId) {
-        FORBID_REPLY.setOption(requestId);
-        return FORBID_REPLY;
+        return FORBID.create(requestId);
     }
 
     /**
@@ -115,8 +153,7 @@ public final class ReplyHelper {
      * @return Reply
      */
     public static Reply invalidToken(String requestId) {
-        INVALID_TOKEN_REPLY.setOption(requestId);
-        return INVALID_TOKEN_REPLY;
+        return INVALID_TOKEN.create(requestId);
     }
 
     /**
@@ -126,8 +163,7 @@ public final class ReplyHelper {
      * @return Reply
      */
     public static Reply expiredToken(String requestId) {
-        EXPIRED_TOKEN_REPLY.setOption(requestId);
-        return EXPIRED_TOKEN_REPLY;
+        return EXPIRED_TOKEN.create(requestId);
     }
 
     /**
@@ -137,8 +173,7 @@ public final class ReplyHelper {
      * @return Reply
      */
     public static Reply tooOften(String requestId) {
-        TOO_OFTEN_REPLY.setOption(requestId);
-        return TOO_OFTEN_REPLY;
+        return TOO_OFTEN.create(requestId);
     }
 
     /**
@@ -149,11 +184,50 @@ public final class ReplyHelper {
      * @return Reply
      */
     public static Reply tooOften(String requestId, String msg) {
-        if (Util.isNotEmpty(msg)) {
-            TOO_OFTEN_REPLY.setMessage(msg);
+        if (Util.isEmpty(msg)) {
+            return TOO_OFTEN.create(requestId);
+        }
+
+        // 接口配置的提示消息不生成模板
+        Reply reply = new Reply();
+        reply.setCode(490);
+        reply.setMessage(msg);
+        reply.setOption(requestId);
+
+        return reply;
+    }
+
+    /**
+     * 获取与Reply一致的模板, 模板由Reply携带, 无需查找
+     *
+     * @param reply Reply
+     * @return 模板, 不存在时返回null
+     */
+    public static ReplyTemplate getTemplate(Reply reply) {
+        if (reply instanceof TemplateReply templateReply) {
+            var template = templateReply.template();
+            return template.matches(reply) ? template : null;
+        }
+
+        return null;
+    }
+
+    /**
+     * 获取服务对应的模板, 模板数量超过上限后不再缓存
+     *
+     * @param code    错误代码
+     * @param service 服务名称
+     * @param message 错误消息
+     * @return 模板
+     */
+    private static ReplyTemplate template(int code, String service, String message) {
+        var key = code + ":" + service;
+        var template = TEMPLATES.get(key);
+        if (template != null) {
+            return template;
         }
 
-        TOO_OFTEN_REPLY.setOption(requestId);
-        return TOO_OFTEN_REPLY;
+        template = new ReplyTemplate(code, message);
+        return TEMPLATES.size() < MAX_TEMPLATES ? Objects.requireNonNullElse(TEMPLATES.putIfAbsent(key, template), template) : template;
     }
 }
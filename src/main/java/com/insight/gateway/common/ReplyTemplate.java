@@ -0,0 +1,94 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.Json;
+import com.insight.utils.pojo.base.Reply;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 预先序列化的Reply模板, 输出时只需拼接请求ID, 无需JSON序列化
+ */
+public final class ReplyTemplate {
+    private static final String PLACEHOLDER = "9f1c3e5a7b2d4f6081a3c5e7092b4d6f";
+    private final int code;
+    private final String message;
+
+    /**
+     * 请求ID之前的部分
+     */
+    private final byte[] prefix;
+
+    /**
+     * 请求ID之后的部分
+     */
+    private final byte[] suffix;
+
+    /**
+     * 无请求ID时的完整内容
+     */
+    private final byte[] empty;
+
+    /**
+     * 构造函数
+     *
+     * @param code    错误代码
+     * @param message 错误消息
+     */
+    public ReplyTemplate(int code, String message) {
+        this.code = code;
+        this.message = message;
+
+        var json = Json.toJson(create(PLACEHOLDER));
+        var index = json.indexOf(PLACEHOLDER);
+        prefix = json.substring(0, index).getBytes(StandardCharsets.UTF_8);
+        suffix = json.substring(index + PLACEHOLDER.length()).getBytes(StandardCharsets.UTF_8);
+        empty = Json.toJson(create(null)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 创建携带本模板的Reply对象
+     *
+     * @param requestId 请求ID
+     * @return Reply
+     */
+    public Reply create(String requestId) {
+        return new TemplateReply(this, code, message, requestId);
+    }
+
+    /**
+     * Reply是否与模板一致
+     *
+     * @param reply Reply
+     * @return 是否一致
+     */
+    public boolean matches(Reply reply) {
+        return reply.getCode() != null && reply.getCode() == code && message.equals(reply.getMessage()) && reply.getData() == null;
+    }
+
+    /**
+     * 将请求ID拼接到模板中并写入缓冲区, 请求ID含有需转义的字符时返回null
+     *
+     * @param factory   DataBufferFactory
+     * @param requestId 请求ID
+     * @return DataBuffer
+     */
+    public DataBuffer write(DataBufferFactory factory, String requestId) {
+        if (requestId == null) {
+            return factory.allocateBuffer(empty.length).write(empty);
+        }
+
+        for (var i = 0; i < requestId.length(); i++) {
+            var ch = requestId.charAt(i);
+            if (ch < 0x20 || ch > 0x7e || ch == '"' || ch == '\\') {
+                return null;
+            }
+        }
+
+        var id = requestId.getBytes(StandardCharsets.US_ASCII);
+        return factory.allocateBuffer(prefix.length + id.length + suffix.length).write(prefix).write(id).write(suffix);
+    }
+}
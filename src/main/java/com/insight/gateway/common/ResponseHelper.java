@@ -0,0 +1,106 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.Json;
+import com.insight.utils.pojo.base.Reply;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 网关直接响应帮助类
+ */
+public final class ResponseHelper {
+
+    private ResponseHelper() {
+    }
+
+    /**
+     * 输出Reply数据
+     *
+     * @param exchange ServerWebExchange
+     * @param reply    Reply
+     * @return Mono
+     */
+    public static Mono<Void> write(ServerWebExchange exchange, Reply reply) {
+        return write(exchange, null, reply);
+    }
+
+    /**
+     * 以指定的HTTP状态输出Reply数据
+     *
+     * @param exchange ServerWebExchange
+     * @param status   HTTP状态, 为空时不设置
+     * @param reply    Reply
+     * @return Mono
+     */
+    public static Mono<Void> write(ServerWebExchange exchange, HttpStatus status, Reply reply) {
+        var template = ReplyHelper.getTemplate(reply);
+        if (template != null) {
+            return write(exchange, status, template, Objects.toString(reply.getOption(), null));
+        }
+
+        return write(exchange, status, factory -> {
+            var data = Json.toJson(reply).getBytes(StandardCharsets.UTF_8);
+            return factory.allocateBuffer(data.length).write(data);
+        });
+    }
+
+    /**
+     * 以指定的HTTP状态输出Reply模板, 直接拼接请求ID, 无需创建Reply及序列化
+     *
+     * @param exchange  ServerWebExchange
+     * @param status    HTTP状态, 为空时不设置
+     * @param template  Reply模板
+     * @param requestId 请求ID
+     * @return Mono
+     */
+    public static Mono<Void> write(ServerWebExchange exchange, HttpStatus status, ReplyTemplate template, String requestId) {
+        return write(exchange, status, factory -> {
+            var body = template.write(factory, requestId);
+            if (body == null) {
+                var data = Json.toJson(template.create(requestId)).getBytes(StandardCharsets.UTF_8);
+                body = factory.allocateBuffer(data.length).write(data);
+            }
+
+            return body;
+        });
+    }
+
+    /**
+     * 输出响应数据
+     *
+     * @param exchange ServerWebExchange
+     * @param status   HTTP状态, 为空时不设置
+     * @param writer   使用缓冲区工厂生成响应数据的方法
+     * @return Mono
+     */
+    private static Mono<Void> write(ServerWebExchange exchange, HttpStatus status, Function<DataBufferFactory, DataBuffer> writer) {
+        // 订阅时才分配缓冲区, 未订阅或提前取消时不会泄漏. 单个缓冲区以Mono写出, 写出失败或取消时由响应释放
+        return Mono.defer(() -> {
+            //设置body, 使用缓冲区工厂分配的池化缓冲区, 写出后由服务器释放
+            var response = exchange.getResponse();
+            var body = writer.apply(response.bufferFactory());
+
+            //设置headers
+            if (status != null) {
+                response.setStatusCode(status);
+            }
+
+            var httpHeaders = response.getHeaders();
+            httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+            httpHeaders.setContentLength(body.readableByteCount());
+            httpHeaders.setDate(System.currentTimeMillis());
+
+            return response.writeWith(Mono.just(body));
+        });
+    }
+}
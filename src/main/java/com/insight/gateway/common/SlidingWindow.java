@@ -0,0 +1,103 @@
+package com.insight.gateway.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 无锁滑动窗口计数器, 按秒分桶统计次数及耗时. 桶切换时的并发写入可能计入旧桶, 统计结果为近似值
+ */
+public class SlidingWindow {
+
+    /**
+     * 桶的数量(窗口秒数)
+     */
+    private static final int SIZE = 10;
+
+    /**
+     * 桶对应的时间(秒)
+     */
+    private final AtomicLongArray times = new AtomicLongArray(SIZE);
+
+    /**
+     * 桶内的次数
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+
+    /**
+     * 桶内的总耗时(纳秒)
+     */
+    private final AtomicLongArray totals = new AtomicLongArray(SIZE);
+
+    /**
+     * 记录一次事件
+     */
+    public void increment() {
+        record(0);
+    }
+
+    /**
+     * 记录一次事件及其耗时
+     *
+     * @param nanos 耗时(纳秒)
+     */
+    public void record(long nanos) {
+        var second = System.currentTimeMillis() / 1000;
+        var index = (int) (second % SIZE);
+        var time = times.get(index);
+        if (time != second && times.compareAndSet(index, time, second)) {
+            counts.set(index, 0);
+            totals.set(index, 0);
+        }
+
+        counts.incrementAndGet(index);
+        if (nanos > 0) {
+            totals.addAndGet(index, nanos);
+        }
+    }
+
+    /**
+     * 获取窗口内的次数
+     *
+     * @return 次数
+     */
+    public long getCount() {
+        var second = System.currentTimeMillis() / 1000;
+        var count = 0L;
+        for (var i = 0; i < SIZE; i++) {
+            if (second - times.get(i) < SIZE) {
+                count += counts.get(i);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * 获取窗口内的平均每秒次数
+     *
+     * @return 每秒次数
+     */
+    public double getRate() {
+        return (double) getCount() / SIZE;
+    }
+
+    /**
+     * 获取窗口内的平均耗时
+     *
+     * @return 平均耗时(毫秒)
+     */
+    public double getAverage() {
+        var second = System.currentTimeMillis() / 1000;
+        var count = 0L;
+        var total = 0L;
+        for (var i = 0; i < SIZE; i++) {
+            if (second - times.get(i) < SIZE) {
+                count += counts.get(i);
+                total += totals.get(i);
+            }
+        }
+
+        return count == 0 ? 0 : total / 1_000_000.0 / count;
+    }
+}
@@ -0,0 +1,152 @@
+package com.insight.gateway.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 轻量级跟踪片段, 未采样的请求使用空片段, 不记录任何数据
+ */
+public class Span {
+
+    /**
+     * 空片段
+     */
+    public static final Span NOOP = new Span(null, null, null, null, null);
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final String spanId;
+    private final String parentId;
+    private final String name;
+    private final long startTime;
+    private final long startNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    /**
+     * 结束时间(纳秒, Unix时间)
+     */
+    private long endTime;
+
+    /**
+     * 关联的外部跟踪ID(不受信任的调用方传入的跟踪)
+     */
+    private String linkTraceId;
+
+    /**
+     * 关联的外部片段ID
+     */
+    private String linkSpanId;
+
+    /**
+     * 构造函数
+     *
+     * @param tracer   Tracer
+     * @param traceId  跟踪ID
+     * @param spanId   片段ID
+     * @param parentId 父片段ID
+     * @param name     片段名称
+     */
+    Span(Tracer tracer, String traceId, String spanId, String parentId, String name) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.startTime = System.currentTimeMillis() * 1000000;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 设置属性
+     *
+     * @param key   属性名
+     * @param value 属性值
+     * @return Span
+     */
+    public Span setAttribute(String key, Object value) {
+        if (tracer != null && value != null) {
+            synchronized (attributes) {
+                attributes.put(key, value);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * 关联外部跟踪, 外部跟踪不作为父片段
+     *
+     * @param traceId 外部跟踪ID
+     * @param spanId  外部片段ID
+     * @return Span
+     */
+    Span link(String traceId, String spanId) {
+        if (tracer != null) {
+            linkTraceId = traceId;
+            linkSpanId = spanId;
+        }
+
+        return this;
+    }
+
+    /**
+     * 结束片段并提交导出
+     */
+    public void end() {
+        if (tracer == null || endTime != 0) {
+            return;
+        }
+
+        endTime = startTime + System.nanoTime() - startNanos;
+        tracer.export(this);
+    }
+
+    /**
+     * 是否已采样
+     *
+     * @return 是否已采样
+     */
+    public boolean isSampled() {
+        return tracer != null;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLinkTraceId() {
+        return linkTraceId;
+    }
+
+    public String getLinkSpanId() {
+        return linkSpanId;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public Map<String, Object> getAttributes() {
+        synchronized (attributes) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+}
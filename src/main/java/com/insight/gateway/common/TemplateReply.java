@@ -0,0 +1,40 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.pojo.base.Reply;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 由模板创建的Reply, 携带模板以便输出时直接使用, 无需按错误代码及消息查找
+ */
+final class TemplateReply extends Reply {
+
+    /**
+     * 创建本对象的模板, 不参与序列化
+     */
+    private final transient ReplyTemplate template;
+
+    /**
+     * 构造函数
+     *
+     * @param template  模板
+     * @param code      错误代码
+     * @param message   错误消息
+     * @param requestId 请求ID
+     */
+    TemplateReply(ReplyTemplate template, int code, String message, String requestId) {
+        this.template = template;
+        setCode(code);
+        setMessage(message);
+        setOption(requestId);
+    }
+
+    /**
+     * 获取创建本对象的模板
+     *
+     * @return 模板
+     */
+    ReplyTemplate template() {
+        return template;
+    }
+}
@@ -0,0 +1,111 @@
+package com.insight.gateway.common;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 本地令牌桶
+ */
+public class TokenBucket {
+
+    /**
+     * 每秒生成令牌数
+     */
+    private double rate;
+
+    /**
+     * 桶容量
+     */
+    private double capacity;
+
+    /**
+     * 当前令牌数
+     */
+    private double tokens;
+
+    /**
+     * 上次补充令牌时间(纳秒)
+     */
+    private long refillTime;
+
+    /**
+     * 最后访问时间(毫秒)
+     */
+    private volatile long accessTime;
+
+    /**
+     * 构造函数
+     *
+     * @param rate     每秒生成令牌数
+     * @param capacity 桶容量
+     */
+    public TokenBucket(double rate, double capacity) {
+        this.rate = rate;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.refillTime = System.nanoTime();
+        this.accessTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 获取一个令牌
+     *
+     * @return 是否获取成功
+     */
+    public synchronized boolean tryAcquire() {
+        accessTime = System.currentTimeMillis();
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * 归还一个令牌
+     */
+    public synchronized void release() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * 调整速率及容量, 当前令牌数不超过新的容量
+     *
+     * @param rate     每秒生成令牌数
+     * @param capacity 桶容量
+     */
+    public synchronized void configure(double rate, double capacity) {
+        refill();
+        this.rate = rate;
+        this.capacity = capacity;
+        tokens = Math.min(tokens, capacity);
+    }
+
+    /**
+     * 获取每秒生成令牌数
+     *
+     * @return 每秒生成令牌数
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * 获取最后访问时间
+     *
+     * @return 最后访问时间(毫秒)
+     */
+    public long getAccessTime() {
+        return accessTime;
+    }
+
+    /**
+     * 按时间补充令牌
+     */
+    private void refill() {
+        var now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refillTime) * rate / 1e9);
+        refillTime = now;
+    }
+}
@@ -0,0 +1,85 @@
+package com.insight.gateway.common;
+
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 请求的跟踪上下文, 保存在exchange属性中
+ */
+public final class TraceContext {
+    private static final String ATTRIBUTE = "traceContext";
+    private final Tracer tracer;
+    private final String traceId;
+    private final String parentId;
+    private final boolean sampled;
+    private final Span root;
+
+    /**
+     * 构造函数
+     *
+     * @param tracer   Tracer
+     * @param traceId  跟踪ID
+     * @param parentId 调用方片段ID
+     * @param sampled  是否采样
+     */
+    TraceContext(Tracer tracer, String traceId, String parentId, boolean sampled) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.parentId = parentId;
+        this.sampled = sampled;
+        this.root = sampled ? new Span(tracer, traceId, Tracer.newId(8), parentId, "gateway") : Span.NOOP;
+    }
+
+    /**
+     * 获取请求的跟踪上下文
+     *
+     * @param exchange ServerWebExchange
+     * @return 跟踪上下文, 不存在时返回null
+     */
+    public static TraceContext of(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * 将跟踪上下文保存到exchange属性中
+     *
+     * @param exchange ServerWebExchange
+     */
+    public void attach(ServerWebExchange exchange) {
+        exchange.getAttributes().put(ATTRIBUTE, this);
+    }
+
+    /**
+     * 开始一个子片段, 未采样时返回空片段
+     *
+     * @param name 片段名称
+     * @return Span
+     */
+    public Span startSpan(String name) {
+        return sampled ? new Span(tracer, traceId, Tracer.newId(8), root.getSpanId(), name) : Span.NOOP;
+    }
+
+    /**
+     * 生成W3C traceparent请求头
+     *
+     * @param span 当前片段
+     * @return traceparent
+     */
+    public String traceparent(Span span) {
+        var spanId = span.isSampled() ? span.getSpanId() : parentId != null ? parentId : Tracer.newId(8);
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public Span getRoot() {
+        return root;
+    }
+}
@@ -0,0 +1,305 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import com.insight.utils.Json;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 分布式跟踪, 生成及传递W3C traceparent, 采样的片段批量异步导出到OTLP端点或本地文件
+ */
+@Component
+public class Tracer {
+    private static final String PREFIX = "insight.trace.";
+    private static final Pattern TRACEPARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final EnvUtil env;
+    private final Counter dropped;
+
+    /**
+     * 待导出的片段队列
+     */
+    private volatile BlockingQueue<Span> queue;
+
+    /**
+     * 采样率
+     */
+    private volatile double sampleRate;
+
+    /**
+     * 导出方式: none, otlp, file
+     */
+    private volatile String exporter;
+
+    /**
+     * 受信任的上一跳地址前缀, 只有来自这些地址的traceparent沿用其跟踪ID及采样标志
+     */
+    private volatile List<String> trustedSources;
+
+    /**
+     * 构造函数
+     *
+     * @param env      EnvUtil
+     * @param registry MeterRegistry
+     */
+    public Tracer(EnvUtil env, MeterRegistry registry) {
+        this.env = env;
+        dropped = Counter.builder("gateway.trace.dropped").register(registry);
+        loadSettings();
+    }
+
+    /**
+     * 创建跟踪上下文. 受信任的上一跳传入合法的traceparent时沿用其跟踪ID及采样标志; 不受信任时生成新的跟踪ID(即请求ID),
+     * 按采样率决定是否采样, 传入的跟踪只作为根片段的关联, 防止调用方指定请求ID或强制采样
+     *
+     * @param traceparent 请求头traceparent
+     * @param remote      上一跳地址
+     * @return 跟踪上下文
+     */
+    public TraceContext start(String traceparent, InetSocketAddress remote) {
+        var enabled = !"none".equals(exporter);
+        var sampled = sampleRate > 0 && enabled && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (traceparent == null) {
+            return new TraceContext(this, newId(16), null, sampled);
+        }
+
+        var matcher = TRACEPARENT.matcher(traceparent.trim());
+        if (!matcher.matches() || matcher.group(1).equals("0".repeat(32))) {
+            return new TraceContext(this, newId(16), null, sampled);
+        }
+
+        if (isTrusted(remote)) {
+            var flag = (Integer.parseInt(matcher.group(3), 16) & 1) == 1 && enabled;
+            return new TraceContext(this, matcher.group(1), matcher.group(2), flag);
+        }
+
+        var context = new TraceContext(this, newId(16), null, sampled);
+        context.getRoot().link(matcher.group(1), matcher.group(2));
+        return context;
+    }
+
+    /**
+     * 上一跳地址是否受信任
+     *
+     * @param remote 上一跳地址
+     * @return 是否受信任
+     */
+    private boolean isTrusted(InetSocketAddress remote) {
+        var sources = trustedSources;
+        if (sources.isEmpty() || remote == null || remote.getAddress() == null) {
+            return false;
+        }
+
+        var address = remote.getAddress().getHostAddress();
+        return sources.stream().anyMatch(address::startsWith);
+    }
+
+    /**
+     * 提交片段, 队列已满时丢弃
+     *
+     * @param span 片段
+     */
+    void export(Span span) {
+        if (!queue.offer(span)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 批量导出片段
+     */
+    @Scheduled(fixedDelayString = "${insight.trace.flushInterval:5000}")
+    public void flush() {
+        var batchSize = EnvHelper.getInt(env, PREFIX + "batchSize", 512);
+        var batch = new ArrayList<Span>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                if ("otlp".equals(exporter)) {
+                    exportOtlp(batch);
+                } else if ("file".equals(exporter)) {
+                    exportFile(batch);
+                }
+            } catch (Exception ex) {
+                dropped.increment(batch.size());
+                logger.warn("导出跟踪数据失败: {}", ex.getMessage());
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * 关闭时导出剩余片段
+     */
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * 配置变更时重新加载参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            loadSettings();
+        }
+    }
+
+    /**
+     * 生成随机ID
+     *
+     * @param bytes 字节数
+     * @return 十六进制字符串
+     */
+    static String newId(int bytes) {
+        var random = ThreadLocalRandom.current();
+        var chars = new char[bytes * 2];
+        for (var i = 0; i < chars.length; i++) {
+            chars[i] = HEX[random.nextInt(16)];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * 以OTLP/HTTP JSON格式导出
+     *
+     * @param batch 片段集合
+     */
+    private void exportOtlp(List<Span> batch) {
+        var resource = Map.of("attributes", List.of(attribute("service.name", env.getValue("spring.application.name"))));
+        var scopeSpans = Map.of("scope", Map.of("name", "gateway"), "spans", batch.stream().map(this::toOtlp).toList());
+        var body = Map.of("resourceSpans", List.of(Map.of("resource", resource, "scopeSpans", List.of(scopeSpans))));
+
+        var request = HttpRequest.newBuilder(URI.create(EnvHelper.getString(env, PREFIX + "endpoint", "http://localhost:4318/v1/traces")))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(Json.toJson(body), StandardCharsets.UTF_8))
+                .build();
+        var size = batch.size();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, ex) -> {
+            if (ex != null || response.statusCode() >= 300) {
+                dropped.increment(size);
+                logger.warn("导出跟踪数据失败: {}", ex != null ? ex.getMessage() : response.statusCode());
+            }
+        });
+    }
+
+    /**
+     * 以JSON Lines格式追加到本地文件
+     *
+     * @param batch 片段集合
+     * @throws IOException IOException
+     */
+    private void exportFile(List<Span> batch) throws IOException {
+        var path = Path.of(EnvHelper.getString(env, PREFIX + "file", System.getProperty("java.io.tmpdir") + "/gateway-trace.jsonl"));
+        var builder = new StringBuilder();
+        batch.forEach(i -> builder.append(Json.toJson(toOtlp(i))).append('\n'));
+        Files.writeString(path, builder, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * 转换为OTLP片段结构
+     *
+     * @param span 片段
+     * @return OTLP片段
+     */
+    private Map<String, Object> toOtlp(Span span) {
+        var map = new LinkedHashMap<String, Object>();
+        map.put("traceId", span.getTraceId());
+        map.put("spanId", span.getSpanId());
+        if (span.getParentId() != null) {
+            map.put("parentSpanId", span.getParentId());
+        }
+
+        map.put("name", span.getName());
+        map.put("kind", "gateway".equals(span.getName()) ? 2 : "upstream".equals(span.getName()) ? 3 : 1);
+        map.put("startTimeUnixNano", String.valueOf(span.getStartTime()));
+        map.put("endTimeUnixNano", String.valueOf(span.getEndTime()));
+        map.put("attributes", span.getAttributes().entrySet().stream().map(e -> attribute(e.getKey(), e.getValue())).toList());
+        if (span.getLinkTraceId() != null) {
+            map.put("links", List.of(Map.of("traceId", span.getLinkTraceId(), "spanId", span.getLinkSpanId())));
+        }
+
+        return map;
+    }
+
+    /**
+     * 转换为OTLP属性结构
+     *
+     * @param key   属性名
+     * @param value 属性值
+     * @return OTLP属性
+     */
+    private Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> typed;
+        if (value instanceof Integer || value instanceof Long) {
+            typed = Map.of("intValue", value.toString());
+        } else if (value instanceof Boolean) {
+            typed = Map.of("boolValue", value);
+        } else {
+            typed = Map.of("stringValue", String.valueOf(value));
+        }
+
+        return Map.of("key", key, "value", typed);
+    }
+
+    /**
+     * 加载参数
+     */
+    private void loadSettings() {
+        sampleRate = EnvHelper.getDouble(env, PREFIX + "sampleRate", 0.01);
+        exporter = EnvHelper.getString(env, PREFIX + "exporter", "none");
+        trustedSources = EnvHelper.getList(env, PREFIX + "trustedSources", null);
+
+        // 队列大小变更时将旧队列中的片段转移到新队列, 超出新队列容量的片段计为丢弃
+        var size = EnvHelper.getInt(env, PREFIX + "queueSize", 10000);
+        var old = queue;
+        if (old == null || old.remainingCapacity() + old.size() != size) {
+            var current = new ArrayBlockingQueue<Span>(size);
+            queue = current;
+            if (old != null) {
+                Span span;
+                while ((span = old.poll()) != null) {
+                    if (!current.offer(span)) {
+                        dropped.increment();
+                    }
+                }
+            }
+        }
+    }
+}
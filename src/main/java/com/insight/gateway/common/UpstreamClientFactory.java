@@ -0,0 +1,180 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.web.server.autoconfigure.ServerProperties;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 上游服务HttpClient工厂, 每个服务使用独立的连接池. 其他配置(spring.cloud.gateway.httpclient.*)与网关默认HttpClient一致
+ */
+@Component
+public class UpstreamClientFactory {
+    private static final String PREFIX = "insight.upstream.";
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+    private final EnvUtil env;
+    private final HttpClientProperties properties;
+    private final ServerProperties serverProperties;
+    private final HttpClientSslConfigurer sslConfigurer;
+    private final List<HttpClientCustomizer> customizers;
+
+    /**
+     * 构造函数
+     *
+     * @param env              EnvUtil
+     * @param properties       网关HttpClient配置
+     * @param serverProperties ServerProperties
+     * @param sslConfigurer    网关HttpClient SSL配置
+     * @param customizers      网关HttpClient定制器
+     */
+    public UpstreamClientFactory(EnvUtil env, HttpClientProperties properties, ServerProperties serverProperties,
+                                 HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers) {
+        this.env = env;
+        this.properties = properties;
+        this.serverProperties = serverProperties;
+        this.sslConfigurer = sslConfigurer;
+        this.customizers = customizers;
+    }
+
+    /**
+     * 获取服务对应的HttpClient
+     *
+     * @param service 服务名称
+     * @return HttpClient
+     */
+    public HttpClient get(String service) {
+        return clients.computeIfAbsent(service, this::create);
+    }
+
+    /**
+     * 配置变更时重建连接池, 旧连接池在宽限期后释放
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().noneMatch(i -> i.startsWith(PREFIX))) {
+            return;
+        }
+
+        var expired = new HashMap<>(providers);
+        clients.clear();
+        expired.forEach(providers::remove);
+
+        var grace = Duration.ofMillis(EnvHelper.getLong(env, PREFIX + "disposeDelay", 60000));
+        Mono.delay(grace).subscribe(i -> expired.values().forEach(ConnectionProvider::dispose));
+    }
+
+    /**
+     * 释放全部连接池
+     */
+    @PreDestroy
+    public void destroy() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+
+    /**
+     * 创建服务对应的HttpClient. 以网关HttpClient的构建流程(协议、代理、SSL、压缩及定制器)创建, 仅替换连接池
+     *
+     * @param service 服务名称
+     * @return HttpClient
+     */
+    private HttpClient create(String service) {
+        var pool = properties.getPool();
+        var maxConnections = getInt(service, "maxConnections", pool.getMaxConnections() == null ? 500 : pool.getMaxConnections());
+        var provider = ConnectionProvider.builder("upstream-" + service)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(getInt(service, "pendingAcquireMaxCount", maxConnections * 2))
+                .pendingAcquireTimeout(Duration.ofMillis(getLong(service, "pendingAcquireTimeout", pool.getAcquireTimeout() == null ? 5000 : pool.getAcquireTimeout())))
+                .maxIdleTime(Duration.ofMillis(getLong(service, "maxIdleTime", pool.getMaxIdleTime() == null ? 30000 : pool.getMaxIdleTime().toMillis())))
+                .maxLifeTime(Duration.ofMillis(getLong(service, "maxLifeTime", pool.getMaxLifeTime() == null ? 300000 : pool.getMaxLifeTime().toMillis())))
+                .evictInBackground(Duration.ofMillis(getLong(service, "evictInterval", pool.getEvictionInterval().isZero() ? 30000 : pool.getEvictionInterval().toMillis())))
+                .metrics(true)
+                .build();
+        providers.put(service, provider);
+
+        var client = new ServiceClientFactory(this, provider).build();
+
+        // 服务单独配置的连接超时覆盖网关配置
+        var connectTimeout = getInt(service, "connectTimeout", 0);
+        if (connectTimeout > 0) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout);
+        }
+
+        // 上游服务支持h2c时, 通过单连接多路复用减少连接数
+        if (EnvHelper.getBoolean(env, PREFIX + service + ".h2c", false)) {
+            client = client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        return client;
+    }
+
+    /**
+     * 读取服务连接池整型参数, 未配置时使用全局配置
+     *
+     * @param service      服务名称
+     * @param name         参数名称
+     * @param defaultValue 默认值
+     * @return 参数值
+     */
+    private int getInt(String service, String name, int defaultValue) {
+        return EnvHelper.getInt(env, PREFIX + service + "." + name, EnvHelper.getInt(env, PREFIX + name, defaultValue));
+    }
+
+    /**
+     * 读取服务连接池长整型参数, 未配置时使用全局配置
+     *
+     * @param service      服务名称
+     * @param name         参数名称
+     * @param defaultValue 默认值
+     * @return 参数值
+     */
+    private long getLong(String service, String name, long defaultValue) {
+        return EnvHelper.getLong(env, PREFIX + service + "." + name, EnvHelper.getLong(env, PREFIX + name, defaultValue));
+    }
+
+    /**
+     * 使用指定连接池的网关HttpClient工厂
+     */
+    private static class ServiceClientFactory extends HttpClientFactory {
+        private final ConnectionProvider provider;
+
+        private ServiceClientFactory(UpstreamClientFactory factory, ConnectionProvider provider) {
+            super(factory.properties, factory.serverProperties, factory.sslConfigurer, factory.customizers);
+            this.provider = provider;
+        }
+
+        @Override
+        protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+            return provider;
+        }
+
+        private HttpClient build() {
+            try {
+                return createInstance();
+            } catch (Exception ex) {
+                throw new IllegalStateException("创建上游服务HttpClient失败", ex);
+            }
+        }
+    }
+}
@@ -15,6 +15,8 @@ import com.insight.utils.redis.StringOps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 
@@ -28,6 +30,8 @@ public class Verify {
     private final String requestId;
     private final TokenKey tokenKey;
     private final EnvUtil env;
+    private final TraceContext trace;
+    private final HotKeyCache hotKeys;
 
     /**
      * 令牌安全码
@@ -43,16 +47,20 @@ public class Verify {
      * 构造方法
      *
      * @param requestId   请求ID
-     * @param token       访问令牌
-     * @param fingerprint 用户特征串
+     * @param env         EnvUtil
+     * @param accessToken 访问令牌
+     * @param trace       跟踪上下文
+     * @param hotKeys     热点键缓存
      */
-    public Verify(String requestId, EnvUtil env, String token, String fingerprint) {
+    public Verify(String requestId, EnvUtil env, AccessToken accessToken, TraceContext trace, HotKeyCache hotKeys) {
         this.requestId = requestId;
         this.env = env;
+        this.trace = trace;
+        this.hotKeys = hotKeys;
 
-        tokenKey = Json.toToken(token);
+        tokenKey = accessToken.getTokenKey();
         if (tokenKey == null) {
-            logger.error("requestId: {}. 错误信息: {}", requestId, "提取验证信息失败。Token is:" + token);
+            logger.error("requestId: {}. 错误信息: {}", requestId, "提取验证信息失败。Token is:" + accessToken.getToken());
             return;
         }
 
@@ -86,7 +94,7 @@ public class Verify {
         }
 
         // 验证令牌
-        if (!basis.verify(secret)) {
+        if (!isSecretMatched()) {
             return ReplyHelper.invalidToken(requestId);
         }
 
@@ -120,7 +128,8 @@ public class Verify {
      * @return 用户登录信息
      */
     public LoginInfo getLoinInfo() {
-        var map = HashOps.entries("User:" + tokenKey.getUserId());
+        var key = "User:" + tokenKey.getUserId();
+        var map = new HashMap<>(hotKeys.get(key, null, () -> HashOps.entries(key)));
         var openIds = map.get("openIds");
         if (openIds != null) {
             map.put("openIds", Json.toList(openIds, OpenId.class));
@@ -137,13 +146,28 @@ public class Verify {
         return loginInfo;
     }
 
+    /**
+     * 令牌安全码是否与缓存一致, 以恒定时间比较, 耗时不随相同前缀的长度变化
+     *
+     * @return 是否一致
+     */
+    private boolean isSecretMatched() {
+        var secretKey = basis.getSecretKey();
+        if (secret == null || secretKey == null) {
+            return false;
+        }
+
+        return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), secretKey.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * 用户是否被禁用
      *
      * @return 是否被禁用
      */
     private boolean invalid() {
-        var value = HashOps.get("User:" + tokenKey.getUserId(), "invalid");
+        var key = "User:" + tokenKey.getUserId();
+        var value = hotKeys.get(key, "invalid", () -> HashOps.get(key, "invalid"));
         return Boolean.parseBoolean(value);
     }
 
@@ -155,6 +179,7 @@ public class Verify {
      */
     private Boolean isPermit(String authCode) {
         if (basis.isPermitExpiry()) {
+            var span = trace == null ? Span.NOOP : trace.startSpan("permission.refresh");
             var headers = new HashMap<String, String>();
             headers.put("loginInfo", Json.toBase64(getLoinInfo()));
 
@@ -165,6 +190,7 @@ public class Verify {
 
             var expire = DateTime.getRemainSeconds(basis.getExpiryTime());
             StringOps.set(tokenKey.getKey(), basis, expire);
+            span.end();
         }
 
         var permits = basis.getPermitFuncs();
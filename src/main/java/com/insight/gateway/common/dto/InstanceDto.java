@@ -0,0 +1,91 @@
+package com.insight.gateway.common.dto;
+
+import com.insight.utils.pojo.base.BaseXo;
+
+import java.util.Map;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 服务实例快照类
+ */
+public class InstanceDto extends BaseXo {
+
+    /**
+     * 实例ID
+     */
+    private String instanceId;
+
+    /**
+     * 服务名称
+     */
+    private String serviceId;
+
+    /**
+     * 主机地址
+     */
+    private String host;
+
+    /**
+     * 端口
+     */
+    private Integer port;
+
+    /**
+     * 是否使用HTTPS
+     */
+    private Boolean secure;
+
+    /**
+     * 实例元数据
+     */
+    private Map<String, String> metadata;
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public void setServiceId(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public Integer getPort() {
+        return port;
+    }
+
+    public void setPort(Integer port) {
+        this.port = port;
+    }
+
+    public Boolean getSecure() {
+        return secure;
+    }
+
+    public void setSecure(Boolean secure) {
+        this.secure = secure;
+    }
+
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, String> metadata) {
+        this.metadata = metadata;
+    }
+}
@@ -0,0 +1,92 @@
+package com.insight.gateway.common.dto;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 路由定义类
+ */
+public class RouteDto {
+
+    /**
+     * 路由ID
+     */
+    private final String id;
+
+    /**
+     * 路径前缀
+     */
+    private final String path;
+
+    /**
+     * 目标服务名称
+     */
+    private final String service;
+
+    /**
+     * 镜像目标地址(lb://影子服务名称)
+     */
+    private final String mirror;
+
+    /**
+     * 镜像抽样比例
+     */
+    private final double mirrorRatio;
+
+    /**
+     * 构造函数
+     *
+     * @param id      路由ID
+     * @param path    路径前缀
+     * @param service 目标服务名称
+     */
+    public RouteDto(String id, String path, String service) {
+        this(id, path, service, null, 0);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param id          路由ID
+     * @param path        路径前缀
+     * @param service     目标服务名称
+     * @param mirror      镜像目标地址
+     * @param mirrorRatio 镜像抽样比例
+     */
+    public RouteDto(String id, String path, String service, String mirror, double mirrorRatio) {
+        this.id = id;
+        this.path = path;
+        this.service = service;
+        this.mirror = mirror;
+        this.mirrorRatio = mirrorRatio;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getMirror() {
+        return mirror;
+    }
+
+    public double getMirrorRatio() {
+        return mirrorRatio;
+    }
+
+    /**
+     * 请求路径是否匹配当前路由
+     *
+     * @param uri 请求路径
+     * @return 是否匹配
+     */
+    public boolean matches(String uri) {
+        return uri.startsWith(path) && (uri.length() == path.length() || uri.charAt(path.length()) == '/');
+    }
+}
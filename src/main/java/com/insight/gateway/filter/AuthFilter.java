@@ -1,29 +1,42 @@
 package com.insight.gateway.filter;
 
+import com.insight.gateway.common.AccessToken;
+import com.insight.gateway.common.BlockingOffload;
+import com.insight.gateway.common.Deadline;
+import com.insight.gateway.common.Diagnostics;
+import com.insight.gateway.common.EnvHelper;
+import com.insight.gateway.common.HotKeyCache;
+import com.insight.gateway.common.InterfaceConfigCache;
+import com.insight.gateway.common.InvalidTokenCache;
+import com.insight.gateway.common.QuotaManager;
 import com.insight.gateway.common.ReplyHelper;
+import com.insight.gateway.common.ResponseHelper;
+import com.insight.gateway.common.Span;
+import com.insight.gateway.common.TraceContext;
 import com.insight.gateway.common.Verify;
 import com.insight.utils.DateTime;
 import com.insight.utils.EnvUtil;
 import com.insight.utils.Json;
 import com.insight.utils.Util;
-import com.insight.utils.http.HttpClient;
 import com.insight.utils.pojo.auth.InterfaceDto;
 import com.insight.utils.pojo.auth.LoginInfo;
 import com.insight.utils.pojo.base.Reply;
-import com.insight.utils.redis.HashOps;
 import com.insight.utils.redis.KeyOps;
 import com.insight.utils.redis.StringOps;
 import org.springframework.core.Ordered;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * @author 宣炳刚
@@ -32,129 +45,264 @@ import java.time.LocalDateTime;
  */
 @Component
 public class AuthFilter implements WebFilter, Ordered {
+    private static final String HEALTH_PATH = "/actuator/health";
+    private static final String ADMIN_PATH = "/actuator/diagnostics";
     private final EnvUtil env;
-    private LocalDateTime refreshTime;
+    private final BlockingOffload offload;
+    private final InterfaceConfigCache interfaceConfig;
+    private final InvalidTokenCache invalidTokens;
+    private final QuotaManager quota;
+    private final HotKeyCache hotKeys;
+    private final Diagnostics diagnostics;
 
     /**
-     * 令牌持有人信息
+     * 构造函数
+     *
+     * @param env             EnvUtil
+     * @param offload         阻塞调用卸载执行器
+     * @param interfaceConfig 接口配置缓存
+     * @param invalidTokens   无效Token缓存
+     * @param quota           分级配额
+     * @param hotKeys         热点键缓存
+     * @param diagnostics     运行时诊断数据
      */
-    private LoginInfo loginInfo;
+    public AuthFilter(EnvUtil env, BlockingOffload offload, InterfaceConfigCache interfaceConfig, InvalidTokenCache invalidTokens, QuotaManager quota,
+                      HotKeyCache hotKeys, Diagnostics diagnostics) {
+        this.env = env;
+        this.offload = offload;
+        this.interfaceConfig = interfaceConfig;
+        this.invalidTokens = invalidTokens;
+        this.quota = quota;
+        this.hotKeys = hotKeys;
+        this.diagnostics = diagnostics;
+    }
 
     /**
-     * 验证结果
+     * 身份验证及鉴权过滤器
+     *
+     * @param exchange ServerWebExchange
+     * @param chain    GatewayFilterChain
+     * @return Mono
      */
-    private Reply reply;
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var path = exchange.getRequest().getPath().value();
+        if (path.startsWith(HEALTH_PATH)) {
+            return chain.filter(exchange);
+        }
 
-    /**
-     * 请求ID
-     */
-    private String requestId;
+        // 诊断端点只允许携带管理令牌的请求访问
+        var request = exchange.getRequest();
+        var requestId = request.getHeaders().getFirst("requestId");
+        if (path.startsWith(ADMIN_PATH)) {
+            return isAdmin(request.getHeaders().getFirst("X-Admin-Token")) ? chain.filter(exchange)
+                    : ResponseHelper.write(exchange, HttpStatus.FORBIDDEN, ReplyHelper.FORBID, requestId);
+        }
+
+        // 不存在的URL直接拒绝, 不访问Redis
+        var method = request.getMethod();
+        var span = startSpan(exchange, "config.lookup");
+        var config = interfaceConfig.get(method, path);
+        span.setAttribute("found", config != null).end();
+        if (config == null) {
+            return ResponseHelper.write(exchange, ReplyHelper.fail(requestId, "不存在的URL: " + method + ":" + path));
+        }
+
+        // 缺少Token、已知无效或无法解码的Token直接拒绝
+        if (config.getVerify()) {
+            var accessToken = AccessToken.of(exchange);
+            if (!accessToken.isPresent() || invalidTokens.contains(accessToken)) {
+                return ResponseHelper.write(exchange, null, ReplyHelper.INVALID_TOKEN, requestId);
+            }
+
+            if (accessToken.getTokenKey() == null) {
+                invalidTokens.add(accessToken.getToken());
+                return ResponseHelper.write(exchange, null, ReplyHelper.INVALID_TOKEN, requestId);
+            }
+        }
+
+        // Redis及HTTP调用均为同步调用, 在卸载执行器中执行, 超时时间不超过请求的剩余时间
+        if (Deadline.isExpired(exchange)) {
+            return ResponseHelper.write(exchange, HttpStatus.GATEWAY_TIMEOUT, ReplyHelper.timeout(requestId, "deadline"));
+        }
+
+        return diagnostics.track(method, path, authorize(exchange, chain, config, requestId));
+    }
 
     /**
-     * 限流键名
+     * 获取过滤器序号
+     *
+     * @return 过滤器序号
      */
-    private String limitKey;
+    @Override
+    public int getOrder() {
+        return 1;
+    }
 
     /**
-     * 构造函数
+     * 在卸载执行器中验证请求, 验证通过后转发
      *
-     * @param env EnvUtil
+     * @param exchange  ServerWebExchange
+     * @param chain     GatewayFilterChain
+     * @param config    接口配置
+     * @param requestId 请求ID
+     * @return Mono
      */
-    public AuthFilter(EnvUtil env) {
-        this.env = env;
+    private Mono<Void> authorize(ServerWebExchange exchange, WebFilterChain chain, InterfaceDto config, String requestId) {
+        var remaining = Deadline.remaining(exchange);
+        var result = remaining == null ? offload.call(() -> verify(exchange, config)) : offload.call(() -> verify(exchange, config), Duration.ofMillis(remaining));
+        return result
+                .onErrorResume(RejectedExecutionException.class, ex -> Mono.just(ReplyHelper.serviceBusy(requestId)))
+                .onErrorResume(TimeoutException.class, ex -> Mono.just(ReplyHelper.timeout(requestId, "auth")))
+                .flatMap(reply -> {
+                    if (!reply.getSuccess()) {
+                        // 超时(截止时间或鉴权超时)与DeadlineFilter一致以504状态响应
+                        var status = reply.getCode() == 504 ? HttpStatus.GATEWAY_TIMEOUT : null;
+                        return ResponseHelper.write(exchange, status, reply);
+                    }
+
+                    // 请求头附加用户信息
+                    LoginInfo loginInfo = exchange.getAttribute("loginInfo");
+                    if (loginInfo == null) {
+                        return chain.filter(exchange);
+                    }
+
+                    var mutated = exchange.getRequest().mutate()
+                            .header("loginInfo", Json.toBase64(loginInfo))
+                            .build();
+                    return chain.filter(exchange.mutate().request(mutated).build());
+                });
     }
 
     /**
-     * 身份验证及鉴权过滤器
+     * 接口限流、身份验证及鉴权
      *
      * @param exchange ServerWebExchange
-     * @param chain    GatewayFilterChain
-     * @return Mono
+     * @param config   接口配置
+     * @return 验证结果
      */
-    @Override
-    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    private Reply verify(ServerWebExchange exchange, InterfaceDto config) {
         var request = exchange.getRequest();
         var headers = request.getHeaders();
         var fingerprint = headers.getFirst("fingerprint");
+        var requestId = headers.getFirst("requestId");
         var method = request.getMethod();
 
-        var path = request.getPath().value();
-        var key = method + ":" + path;
-        var config = getConfig(method, path);
-
-        requestId = headers.getFirst("requestId");
-        if (config == null) {
-            reply = ReplyHelper.fail(requestId, "不存在的URL: " + key);
-            return initResponse(exchange);
-        }
+        var key = method + ":" + request.getPath().value();
 
         // 接口限流
+        String limitKey = null;
         if (Util.isNotEmpty(key) && config.getLimit()) {
             limitKey = Util.md5(fingerprint + "|" + key);
-            if (isGapLimited(config) || isCycleLimited(config)) {
-                return initResponse(exchange);
+            if (Deadline.isExpired(exchange)) {
+                return ReplyHelper.timeout(requestId, "deadline");
+            }
+
+            var span = startSpan(exchange, "rate.limit");
+            var limited = isGapLimited(config, limitKey) || isCycleLimited(config, limitKey);
+            span.setAttribute("limited", limited).end();
+            if (limited) {
+                diagnostics.reject("interface");
+                return ReplyHelper.tooOften(requestId, config.getMessage());
+            }
+        }
+
+        // 设置打印返回值标志, 私有接口验证Token,授权接口鉴权
+        exchange.getAttributes().put("logResult", config.getLogResult());
+        LoginInfo loginInfo = null;
+        if (config.getVerify()) {
+            if (Deadline.isExpired(exchange)) {
+                return ReplyHelper.timeout(requestId, "deadline");
+            }
+
+            var accessToken = AccessToken.of(exchange);
+            var span = startSpan(exchange, "token.verify");
+            var verify = new Verify(requestId, env, accessToken, TraceContext.of(exchange), hotKeys);
+            var reply = verify.compare(config.getAuthCode());
+            span.setAttribute("code", reply.getCode()).end();
+            if (!reply.getSuccess()) {
+                if (reply.getCode() == 421) {
+                    invalidTokens.add(accessToken.getToken());
+                }
+
+                if (limitKey != null) {
+                    KeyOps.delete("Surplus:" + limitKey);
+                }
+
+                return reply;
+            }
+
+            loginInfo = verify.getLoinInfo();
+            exchange.getAttributes().put("loginInfo", loginInfo);
+
+            // 租户、应用及用户配额
+            var quotaSpan = startSpan(exchange, "quota");
+            var allowed = quota.tryAcquire(loginInfo);
+            quotaSpan.setAttribute("allowed", allowed).end();
+            if (!allowed) {
+                diagnostics.reject("quota");
+                return ReplyHelper.tooOften(requestId);
             }
         }
 
-        // 验证提交数据临时Token
+        // 验证提交数据临时Token, 临时Token与用户绑定, 须在身份验证之后进行
         if (config.getNeedToken()) {
+            if (Deadline.isExpired(exchange)) {
+                return ReplyHelper.timeout(requestId, "deadline");
+            }
+
+            if (loginInfo == null) {
+                return ReplyHelper.invalidSubmitToken(requestId);
+            }
+
             var redisKey = "SubmitToken:" + Util.md5(loginInfo.getId() + ":" + key);
             var submitToken = headers.getFirst("SubmitToken");
             var id = StringOps.get(redisKey);
             if (!Util.isNotEmpty(id) || !id.equals(submitToken)) {
-                reply = ReplyHelper.fail(requestId, "SubmitToken不存在");
-                return initResponse(exchange);
-            } else {
-                KeyOps.delete(redisKey);
+                return ReplyHelper.invalidSubmitToken(requestId);
             }
-        }
 
-        // 设置打印返回值标志, 放行公共接口
-        exchange.getAttributes().put("logResult", config.getLogResult());
-        if (!config.getVerify()) {
-            return chain.filter(exchange);
+            KeyOps.delete(redisKey);
         }
 
-        // 私有接口验证Token,授权接口鉴权
-        var token = headers.getFirst("Authorization");
-        if (Util.isEmpty(token)) {
-            reply = ReplyHelper.invalidToken(requestId);
-            return initResponse(exchange);
-        }
+        return ReplyHelper.success();
+    }
 
-        var verify = new Verify(requestId, env, token, fingerprint);
-        reply = verify.compare(config.getAuthCode());
-        if (!reply.getSuccess()) {
-            KeyOps.delete("Surplus:" + limitKey);
-            return initResponse(exchange);
+    /**
+     * 是否有效的管理令牌, 未配置管理令牌时拒绝全部请求
+     *
+     * @param token 管理令牌
+     * @return 是否有效
+     */
+    private boolean isAdmin(String token) {
+        var adminToken = EnvHelper.getString(env, "insight.diagnostics.token", null);
+        if (adminToken == null || adminToken.isEmpty() || token == null) {
+            return false;
         }
 
-        // 请求头附加用户信息
-        loginInfo = verify.getLoinInfo();
-        request = exchange.getRequest().mutate()
-                .header("loginInfo", Json.toBase64(loginInfo))
-                .build();
-        exchange = exchange.mutate().request(request).build();
-        return chain.filter(exchange);
+        return MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * 获取过滤器序号
+     * 开始跟踪片段
      *
-     * @return 过滤器序号
+     * @param exchange ServerWebExchange
+     * @param name     片段名称
+     * @return Span
      */
-    @Override
-    public int getOrder() {
-        return 1;
+    private Span startSpan(ServerWebExchange exchange, String name) {
+        var trace = TraceContext.of(exchange);
+        return trace == null ? Span.NOOP : trace.startSpan(name);
     }
 
     /**
      * 是否被限流(访问间隔小于最小时间间隔)
      *
-     * @param config 接口配置
+     * @param config   接口配置
+     * @param limitKey 限流键名
      * @return 是否限制访问
      */
-    private boolean isGapLimited(InterfaceDto config) {
+    private boolean isGapLimited(InterfaceDto config, String limitKey) {
         var gap = Long.valueOf(config.getLimitGap());
         if (0 >= gap) {
             return false;
@@ -174,24 +322,29 @@ public class AuthFilter implements WebFilter, Ordered {
             StringOps.set(key, now, gap);
         }
 
-        reply = ReplyHelper.tooOften(requestId, config.getMessage());
         return true;
     }
 
     /**
      * 是否被限流(限流计时周期内超过最大访问次数)
      *
-     * @param config 接口配置
+     * @param config   接口配置
+     * @param limitKey 限流键名
      * @return 是否限制访问
      */
-    private Boolean isCycleLimited(InterfaceDto config) {
+    private Boolean isCycleLimited(InterfaceDto config, String limitKey) {
         var cycle = Long.valueOf(config.getLimitCycle());
         var max = Long.valueOf(config.getLimitMax());
         if (0 >= cycle || 0 >= max) {
             return false;
         }
 
+        // 已超限的热点键在本地缓存有效期内直接判定为限流, 计数周期只会在键过期时重置
         var key = "Limit:" + limitKey;
+        if (Boolean.TRUE.equals(hotKeys.getCached(key, key))) {
+            return true;
+        }
+
         if (!KeyOps.hasKey(key)) {
             StringOps.set(key, 1, cycle);
             return false;
@@ -201,53 +354,11 @@ public class AuthFilter implements WebFilter, Ordered {
         var val = StringOps.get(key);
         var count = Integer.parseInt(val);
         if (count > max) {
-            reply = ReplyHelper.tooOften(requestId, config.getMessage());
+            hotKeys.putIfHot(key, key, true);
             return true;
         }
 
         StringOps.set(key, count + 1);
         return false;
     }
-
-    /**
-     * 生成返回数据
-     *
-     * @param exchange ServerWebExchange
-     * @return Mono
-     */
-    private Mono<Void> initResponse(ServerWebExchange exchange) {
-        //设置body
-        reply.setOption(requestId);
-        var json = Json.toJson(reply);
-        var data = json.getBytes();
-        var response = exchange.getResponse();
-        var body = response.bufferFactory().wrap(data);
-
-        //设置headers
-        var httpHeaders = response.getHeaders();
-        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
-        httpHeaders.setDate(System.currentTimeMillis());
-
-        return response.writeWith(Flux.just(body));
-    }
-
-    /**
-     * 通过匹配URL获取接口配置
-     *
-     * @param method 请求方法
-     * @param uri    请求URL
-     * @return 接口配置
-     */
-    private InterfaceDto getConfig(HttpMethod method, String uri) {
-        var key = "Config:Interface";
-        var url = uri.replaceAll("/([0-9a-f]{32}|[0-9]{1,19})", "/{}");
-        var hash = Util.md5(method.name() + ":" + url);
-        var now = LocalDateTime.now();
-        if (!HashOps.hasKey(key, hash) && (refreshTime == null || now.isAfter(refreshTime.plusMinutes(5)))) {
-            refreshTime = now;
-            HttpClient.get(env.getValue("insight.loadInterface"));
-        }
-
-        return HashOps.get(key, hash, InterfaceDto.class);
-    }
 }
@@ -0,0 +1,255 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.CircuitBreaker;
+import com.insight.gateway.common.Deadline;
+import com.insight.gateway.common.EnvHelper;
+import com.insight.gateway.common.ReplyHelper;
+import com.insight.gateway.common.ResponseHelper;
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.PrematureCloseException;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 上游调用熔断、超时及重试过滤器
+ */
+@Component
+public class CircuitBreakerFilter implements GlobalFilter, Ordered {
+    /**
+     * 调用因超时被取消的标记, 在取消下游之前设置
+     */
+    public static final String TIMEOUT_ATTR = "upstreamTimeout";
+
+    private static final String ROUTE_PREFIX = "insight.route.";
+    private static final String BREAKER_PREFIX = "insight.breaker.";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, Duration> timeouts = new ConcurrentHashMap<>();
+    private final EnvUtil env;
+    private final MeterRegistry registry;
+
+    private volatile List<String> retryMethods;
+    private volatile int retries;
+    private volatile Duration firstBackoff;
+    private volatile Duration maxBackoff;
+    private volatile double jitter;
+
+    /**
+     * 构造函数
+     *
+     * @param env      EnvUtil
+     * @param registry MeterRegistry
+     */
+    public CircuitBreakerFilter(EnvUtil env, MeterRegistry registry) {
+        this.env = env;
+        this.registry = registry;
+        loadSettings();
+    }
+
+    /**
+     * 上游调用熔断、超时及重试过滤器
+     *
+     * @param exchange ServerWebExchange
+     * @param chain    GatewayFilterChain
+     * @return Mono
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || route.getUri().getHost() == null) {
+            return chain.filter(exchange);
+        }
+
+        String requestId = exchange.getAttribute("requestId");
+        var service = route.getUri().getHost();
+        var breaker = breakers.computeIfAbsent(service, this::createBreaker);
+        if (!breaker.tryAcquire()) {
+            registry.counter("gateway.breaker.rejected", "service", service).increment();
+            return ResponseHelper.write(exchange, HttpStatus.SERVICE_UNAVAILABLE, ReplyHelper.unavailable(requestId, service));
+        }
+
+        var timeout = timeouts.computeIfAbsent(route.getId(), this::getTimeout);
+        var attempt = Mono.defer(() -> {
+            ServerWebExchangeUtils.reset(exchange);
+            exchange.getAttributes().remove(TIMEOUT_ATTR);
+
+            // 每次调用的超时时间不超过请求的剩余时间, 并将剩余时间传递给后端服务.
+            // 路由过滤器在收到响应头时完成, 响应体由外层的NettyWriteResponseFilter写出, 不受超时约束
+            var limit = Deadline.limit(exchange, timeout);
+            if (limit.isZero()) {
+                return Mono.error(new TimeoutException("已超过请求截止时间"));
+            }
+
+            var request = exchange.getRequest().mutate()
+                    .header(Deadline.HEADER, String.valueOf(limit.toMillis()))
+                    .build();
+            var timer = Mono.delay(limit).doOnNext(t -> exchange.getAttributes().put(TIMEOUT_ATTR, true));
+            return chain.filter(exchange.mutate().request(request).build())
+                    .timeout(timer, Mono.error(() -> new TimeoutException("调用超时: " + limit.toMillis() + "ms")));
+        }).doOnSuccess(v -> {
+            var status = exchange.getResponse().getStatusCode();
+            if (status != null && status.is5xxServerError()) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }).doOnError(ex -> breaker.onFailure());
+
+        var method = exchange.getRequest().getMethod().name();
+        if (retries > 0 && retryMethods.contains(method)) {
+            attempt = attempt.retryWhen(Retry.backoff(retries, firstBackoff).maxBackoff(maxBackoff).jitter(jitter)
+                    .filter(ex -> isRetryable(ex) && !exchange.getResponse().isCommitted() && breaker.getState() == CircuitBreaker.CLOSED)
+                    .doBeforeRetry(signal -> registry.counter("gateway.route.retries", "route", route.getId()).increment())
+                    .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        }
+
+        return attempt.onErrorResume(ex -> isRetryable(ex) && !exchange.getResponse().isCommitted(), ex -> {
+            logger.warn("requestId: {}. 调用服务 {} 失败: {}", requestId, service, ex.toString());
+            exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+
+            var isTimeout = findCause(ex, TimeoutException.class);
+            var status = isTimeout ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE;
+            var reply = isTimeout ? ReplyHelper.timeout(requestId, service) : ReplyHelper.unavailable(requestId, service);
+            return ResponseHelper.write(exchange, status, reply);
+        });
+    }
+
+    /**
+     * 获取过滤器序号, 须在RouteToRequestUrlFilter之前执行以保证重试时重新选择服务实例
+     *
+     * @return 过滤器序号
+     */
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER - 1;
+    }
+
+    /**
+     * 获取全部服务的熔断器
+     *
+     * @return 熔断器集合
+     */
+    public Map<String, CircuitBreaker> getBreakers() {
+        return breakers;
+    }
+
+    /**
+     * 配置变更时重新加载熔断、超时及重试参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(ROUTE_PREFIX) || i.startsWith(BREAKER_PREFIX))) {
+            loadSettings();
+        }
+    }
+
+    /**
+     * 加载重试参数并刷新熔断器及超时配置
+     */
+    private void loadSettings() {
+        retryMethods = EnvHelper.getList(env, ROUTE_PREFIX + "retryMethods", "GET,HEAD");
+        retries = EnvHelper.getInt(env, ROUTE_PREFIX + "retries", 1);
+        firstBackoff = Duration.ofMillis(EnvHelper.getLong(env, ROUTE_PREFIX + "firstBackoff", 50));
+        maxBackoff = Duration.ofMillis(EnvHelper.getLong(env, ROUTE_PREFIX + "maxBackoff", 500));
+        jitter = EnvHelper.getDouble(env, ROUTE_PREFIX + "jitter", 0.5);
+
+        timeouts.clear();
+        breakers.values().forEach(this::configure);
+    }
+
+    /**
+     * 获取路由响应超时时间
+     *
+     * @param routeId 路由ID
+     * @return 超时时间
+     */
+    private Duration getTimeout(String routeId) {
+        var timeout = EnvHelper.getLong(env, ROUTE_PREFIX + "timeout", 30000);
+        return Duration.ofMillis(EnvHelper.getLong(env, ROUTE_PREFIX + routeId + ".timeout", timeout));
+    }
+
+    /**
+     * 创建服务熔断器并注册监控指标
+     *
+     * @param service 服务名称
+     * @return 熔断器
+     */
+    private CircuitBreaker createBreaker(String service) {
+        var breaker = new CircuitBreaker(service);
+        configure(breaker);
+
+        Gauge.builder("gateway.breaker.state", breaker, CircuitBreaker::getState).tag("service", service).register(registry);
+        return breaker;
+    }
+
+    /**
+     * 设置熔断器参数
+     *
+     * @param breaker 熔断器
+     */
+    private void configure(CircuitBreaker breaker) {
+        var key = BREAKER_PREFIX + breaker.getService() + ".";
+        var failureRate = EnvHelper.getDouble(env, key + "failureRate", EnvHelper.getDouble(env, BREAKER_PREFIX + "failureRate", 0.5));
+        var minCalls = EnvHelper.getInt(env, key + "minCalls", EnvHelper.getInt(env, BREAKER_PREFIX + "minCalls", 20));
+        var openTime = EnvHelper.getLong(env, key + "openTime", EnvHelper.getLong(env, BREAKER_PREFIX + "openTime", 10000));
+        var window = EnvHelper.getLong(env, BREAKER_PREFIX + "window", 10000);
+        breaker.configure(failureRate, minCalls, openTime, window);
+    }
+
+    /**
+     * 是否可重试的异常(连接失败、连接被提前关闭或超时)
+     *
+     * @param ex 异常
+     * @return 是否可重试
+     */
+    private boolean isRetryable(Throwable ex) {
+        return findCause(ex, ConnectException.class) || findCause(ex, PrematureCloseException.class) || findCause(ex, TimeoutException.class);
+    }
+
+    /**
+     * 异常链中是否包含指定类型的异常
+     *
+     * @param ex   异常
+     * @param type 异常类型
+     * @return 是否包含
+     */
+    private boolean findCause(Throwable ex, Class<? extends Throwable> type) {
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,185 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.ConcurrencyLimiter;
+import com.insight.gateway.common.Diagnostics;
+import com.insight.gateway.common.EnvHelper;
+import com.insight.gateway.common.GatewayConfig;
+import com.insight.gateway.common.ReplyHelper;
+import com.insight.gateway.common.ResponseHelper;
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 服务并发限制过滤器, 在鉴权之前按上游服务快速拒绝超出并发上限的请求
+ */
+@Component
+public class ConcurrencyLimitFilter implements WebFilter, Ordered {
+    private static final String PREFIX = "insight.limiter.";
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final EnvUtil env;
+    private final MeterRegistry registry;
+    private final Diagnostics diagnostics;
+
+    private volatile boolean enabled;
+    private volatile int initialLimit;
+    private volatile String retryAfter;
+    private volatile List<String> criticalPaths;
+
+    /**
+     * 构造函数
+     *
+     * @param env         EnvUtil
+     * @param registry    MeterRegistry
+     * @param diagnostics 运行时诊断数据
+     */
+    public ConcurrencyLimitFilter(EnvUtil env, MeterRegistry registry, Diagnostics diagnostics) {
+        this.env = env;
+        this.registry = registry;
+        this.diagnostics = diagnostics;
+        loadSettings();
+    }
+
+    /**
+     * 服务并发限制过滤器
+     *
+     * @param exchange ServerWebExchange
+     * @param chain    GatewayFilterChain
+     * @return Mono
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var path = exchange.getRequest().getPath().value();
+        var route = GatewayConfig.match(path);
+        if (!enabled || route == null) {
+            return chain.filter(exchange);
+        }
+
+        var limiter = limiters.computeIfAbsent(route.getService(), this::createLimiter);
+        var critical = isCritical(path);
+        if (!limiter.tryAcquire(critical)) {
+            registry.counter("gateway.limiter.rejected", "service", route.getService(), "critical", String.valueOf(critical)).increment();
+            diagnostics.reject("concurrency");
+            exchange.getResponse().getHeaders().set("Retry-After", retryAfter);
+            return ResponseHelper.write(exchange, HttpStatus.SERVICE_UNAVAILABLE, ReplyHelper.SERVICE_BUSY, null);
+        }
+
+        var start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            // 只有实际转发到上游的请求才作为延迟样本, 网关直接拒绝的请求不参与计算
+            if (signal == SignalType.CANCEL || !ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+                limiter.release(-1, false);
+                return;
+            }
+
+            var status = exchange.getResponse().getStatusCode();
+            var dropped = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            limiter.release(System.nanoTime() - start, dropped);
+        });
+    }
+
+    /**
+     * 获取过滤器序号
+     *
+     * @return 过滤器序号
+     */
+    @Override
+    public int getOrder() {
+        return -1;
+    }
+
+    /**
+     * 获取全部服务的并发限制器
+     *
+     * @return 并发限制器集合
+     */
+    public Map<String, ConcurrencyLimiter> getLimiters() {
+        return limiters;
+    }
+
+    /**
+     * 配置变更时重新加载限流参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            loadSettings();
+        }
+    }
+
+    /**
+     * 加载限流参数
+     */
+    private void loadSettings() {
+        enabled = EnvHelper.getBoolean(env, PREFIX + "enabled", true);
+        initialLimit = EnvHelper.getInt(env, PREFIX + "initialLimit", 100);
+        retryAfter = String.valueOf(EnvHelper.getInt(env, PREFIX + "retryAfter", 1));
+        criticalPaths = EnvHelper.getList(env, PREFIX + "criticalPaths", "/base/auth");
+        limiters.values().forEach(this::configure);
+    }
+
+    /**
+     * 是否关键路径的请求
+     *
+     * @param path 请求路径
+     * @return 是否关键请求
+     */
+    private boolean isCritical(String path) {
+        for (var prefix : criticalPaths) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 创建服务并发限制器并注册监控指标
+     *
+     * @param service 服务名称
+     * @return 并发限制器
+     */
+    private ConcurrencyLimiter createLimiter(String service) {
+        var limiter = new ConcurrencyLimiter(service, initialLimit);
+        configure(limiter);
+
+        Gauge.builder("gateway.limiter.limit", limiter, ConcurrencyLimiter::getLimit).tag("service", service).register(registry);
+        Gauge.builder("gateway.limiter.inflight", limiter, ConcurrencyLimiter::getInflight).tag("service", service).register(registry);
+        return limiter;
+    }
+
+    /**
+     * 设置限制器参数
+     *
+     * @param limiter 并发限制器
+     */
+    private void configure(ConcurrencyLimiter limiter) {
+        var key = PREFIX + limiter.getService() + ".";
+        var minLimit = EnvHelper.getInt(env, key + "minLimit", EnvHelper.getInt(env, PREFIX + "minLimit", 10));
+        var maxLimit = EnvHelper.getInt(env, key + "maxLimit", EnvHelper.getInt(env, PREFIX + "maxLimit", 1000));
+        var tolerance = EnvHelper.getDouble(env, PREFIX + "tolerance", 2.0);
+        var smoothing = EnvHelper.getDouble(env, PREFIX + "smoothing", 0.2);
+        var normalShare = EnvHelper.getDouble(env, PREFIX + "normalShare", 0.9);
+        limiter.configure(minLimit, maxLimit, tolerance, smoothing, normalShare);
+    }
+}
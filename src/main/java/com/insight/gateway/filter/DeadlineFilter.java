@@ -0,0 +1,152 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.Deadline;
+import com.insight.gateway.common.EnvHelper;
+import com.insight.gateway.common.GatewayConfig;
+import com.insight.utils.EnvUtil;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 请求截止时间过滤器. 只设置截止时间, 由鉴权(卸载执行器超时)及上游调用(熔断过滤器超时)分别执行,
+ * 截止时间只约束到上游响应头返回为止, 不约束请求体及响应体的传输.
+ * 默认时间预算按路由配置(insight.deadline.[routeId].timeout), 接口配置不含超时字段
+ */
+@Component
+public class DeadlineFilter implements WebFilter, Ordered {
+    private static final String PREFIX = "insight.deadline.";
+    private static final String STREAMING_PATHS = "insight.streaming.paths";
+    private final Map<String, Long> budgets = new ConcurrentHashMap<>();
+    private final EnvUtil env;
+
+    /**
+     * 流式转发的路径前缀, 不设置截止时间
+     */
+    private volatile List<String> streamingPaths;
+
+    /**
+     * 默认时间预算
+     */
+    private volatile long defaultBudget;
+
+    /**
+     * 构造函数
+     *
+     * @param env EnvUtil
+     */
+    public DeadlineFilter(EnvUtil env) {
+        this.env = env;
+        loadSettings();
+    }
+
+    /**
+     * 请求截止时间过滤器. 截止时间取请求头X-Request-Timeout与路由默认值中的较小者,
+     * 流式转发的路径(文件上传下载)不设置截止时间
+     *
+     * @param exchange ServerWebExchange
+     * @param chain    GatewayFilterChain
+     * @return Mono
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var path = exchange.getRequest().getPath().value();
+        if (isStreaming(path)) {
+            return chain.filter(exchange);
+        }
+
+        var budget = getBudget(exchange, path);
+        if (budget > 0) {
+            Deadline.set(exchange, budget);
+        }
+
+        return chain.filter(exchange);
+    }
+
+    /**
+     * 获取过滤器序号
+     *
+     * @return 过滤器序号
+     */
+    @Override
+    public int getOrder() {
+        return -4;
+    }
+
+    /**
+     * 配置变更时重新加载参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX) || i.equals(STREAMING_PATHS))) {
+            loadSettings();
+        }
+    }
+
+    /**
+     * 加载参数, 路由的时间预算在首次使用时读取
+     */
+    private void loadSettings() {
+        streamingPaths = EnvHelper.getList(env, STREAMING_PATHS, "/common/file");
+        defaultBudget = EnvHelper.getLong(env, PREFIX + "timeout", 60000);
+        budgets.clear();
+    }
+
+    /**
+     * 是否流式转发的路径
+     *
+     * @param path 请求路径
+     * @return 是否流式转发
+     */
+    private boolean isStreaming(String path) {
+        for (var prefix : streamingPaths) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 获取请求的时间预算, 0为不限制
+     *
+     * @param exchange ServerWebExchange
+     * @param path     请求路径
+     * @return 时间预算(毫秒)
+     */
+    private long getBudget(ServerWebExchange exchange, String path) {
+        var budget = defaultBudget;
+        var route = GatewayConfig.match(path);
+        if (route != null) {
+            budget = budgets.computeIfAbsent(route.getId(), id -> EnvHelper.getLong(env, PREFIX + id + ".timeout", defaultBudget));
+        }
+
+        var header = exchange.getRequest().getHeaders().getFirst(Deadline.HEADER);
+        if (header != null) {
+            try {
+                var value = Long.parseLong(header.trim());
+                if (value > 0 && (budget <= 0 || value < budget)) {
+                    budget = value;
+                }
+            } catch (NumberFormatException ex) {
+                return budget;
+            }
+        }
+
+        return budget;
+    }
+}
@@ -0,0 +1,75 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.LoadBalancerStats;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 服务实例调用统计过滤器, 为负载均衡提供延迟及在途请求数据
+ */
+@Component
+public class InstanceStatsFilter implements GlobalFilter, Ordered {
+    private final LoadBalancerStats stats;
+
+    /**
+     * 构造函数
+     *
+     * @param stats 负载均衡实例统计
+     */
+    public InstanceStatsFilter(LoadBalancerStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * 服务实例调用统计过滤器
+     *
+     * @param exchange ServerWebExchange
+     * @param chain    GatewayFilterChain
+     * @return Mono
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        var stat = stats.get(response.getServer());
+        var start = System.nanoTime();
+        stat.start();
+        return chain.filter(exchange).doFinally(signal -> {
+            // 熔断过滤器的超时以取消结束调用, 仅该取消按失败计, 以等待时间作为延迟样本, 无响应的实例因此会被提高代价并摘除;
+            // 客户端断开等其他原因的取消不采样
+            if (signal == SignalType.CANCEL) {
+                var timeout = ServerWebExchangeUtils.isAlreadyRouted(exchange) && exchange.getAttributeOrDefault(CircuitBreakerFilter.TIMEOUT_ATTR, false);
+                stats.complete(stat, timeout ? System.nanoTime() - start : -1, timeout);
+                return;
+            }
+
+            var status = exchange.getResponse().getStatusCode();
+            var failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            stats.complete(stat, System.nanoTime() - start, failed);
+        });
+    }
+
+    /**
+     * 获取过滤器序号, 须在负载均衡过滤器选定实例之后执行
+     *
+     * @return 过滤器序号
+     */
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
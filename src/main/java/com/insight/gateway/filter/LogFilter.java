@@ -1,14 +1,26 @@
 package com.insight.gateway.filter;
 
+import com.insight.gateway.common.AccessToken;
+import com.insight.gateway.common.DataBufferHelper;
+import com.insight.gateway.common.EnvHelper;
+import com.insight.gateway.common.InvalidTokenCache;
+import com.insight.gateway.common.ReplyHelper;
+import com.insight.gateway.common.ResponseHelper;
+import com.insight.gateway.common.Tracer;
 import com.insight.gateway.common.dto.LogDto;
+import com.insight.utils.EnvUtil;
 import com.insight.utils.Json;
 import com.insight.utils.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.stereotype.Component;
@@ -22,6 +34,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -31,8 +45,48 @@ import java.util.stream.Collectors;
  */
 @Component
 public class LogFilter implements WebFilter, Ordered {
+    private static final String PREFIX = "insight.streaming.";
+    private static final String SAMPLE_RATE = "insight.log.sampleRate";
+    private static final String MAX_BUFFER_SIZE = "insight.log.maxBodySize";
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final List<String> allowHeaders = Arrays.asList("Accept", "Accept-Encoding", "Authorization", "Content-Type", "Host", "fingerprint", "token", "key", "User-Agent");
+    private final EnvUtil env;
+    private final Tracer tracer;
+    private final InvalidTokenCache invalidTokens;
+
+    /**
+     * 流式转发的路径前缀, 请求体不缓存不记录
+     */
+    private volatile List<String> streamingPaths;
+
+    /**
+     * 流式转发的最大请求体长度
+     */
+    private volatile long maxBodySize;
+
+    /**
+     * 非流式路径缓存请求体的最大长度
+     */
+    private volatile int maxBufferSize;
+
+    /**
+     * 请求日志抽样比例
+     */
+    private volatile double sampleRate;
+
+    /**
+     * 构造函数
+     *
+     * @param env           EnvUtil
+     * @param tracer        Tracer
+     * @param invalidTokens 无效Token缓存
+     */
+    public LogFilter(EnvUtil env, Tracer tracer, InvalidTokenCache invalidTokens) {
+        this.env = env;
+        this.tracer = tracer;
+        this.invalidTokens = invalidTokens;
+        loadSettings();
+    }
 
     /**
      * 请求信息日志过滤器
@@ -53,7 +107,8 @@ public class LogFilter implements WebFilter, Ordered {
         var token = headers.getFirst("Authorization");
         var userAgent = headers.getFirst("User-Agent");
         var path = request.getPath();
-        var requestId = Util.uuid();
+        var trace = tracer.start(headers.getFirst("traceparent"), request.getRemoteAddress());
+        var requestId = trace.getTraceId();
         var fingerprint = Util.md5(source + userAgent + token);
 
         request = exchange.getRequest().mutate()
@@ -62,6 +117,7 @@ public class LogFilter implements WebFilter, Ordered {
                 .build();
         exchange = exchange.mutate().request(request).build();
         exchange.getAttributes().put("requestId", requestId);
+        trace.attach(exchange);
 
         // 处理请求头
         var headerMap = request.getHeaders().toSingleValueMap().entrySet().stream()
@@ -72,9 +128,11 @@ public class LogFilter implements WebFilter, Ordered {
         var method = request.getMethod();
         var log = new LogDto();
         log.setRequestId(requestId);
-        if (Util.isNotEmpty(token)) {
-            var appId = Json.toToken(token).getAppId();
-            log.setAppId(appId);
+        // 已知无效的Token不解码
+        var accessToken = AccessToken.of(exchange);
+        var tokenKey = accessToken.isPresent() && !invalidTokens.contains(accessToken) ? accessToken.getTokenKey() : null;
+        if (tokenKey != null) {
+            log.setAppId(tokenKey.getAppId());
         }
 
         log.setSource(source);
@@ -86,58 +144,135 @@ public class LogFilter implements WebFilter, Ordered {
         var params = request.getQueryParams();
         log.setParams(params.isEmpty() ? null : params.toSingleValueMap());
 
-        // 如Body不为空,则将body内容加入日志
-        var length = request.getHeaders().getContentLength();
-        if (length > 0) {
-            return readBody(exchange, chain, log);
+        // 流式路径只记录请求体长度; 其他路径如Body不为空,则将body内容加入日志
+        Mono<Void> result;
+        var length = headers.getContentLength();
+        if (isStreaming(path.value())) {
+            result = streamBody(exchange, chain, log, length);
+        } else if (length > 0 || (length < 0 && headers.containsKey(HttpHeaders.TRANSFER_ENCODING))) {
+            result = readBody(exchange, chain, log, length);
+        } else {
+            if (isSampled()) {
+                logger.info(log.toString());
+            }
+
+            result = chain.filter(exchange);
         }
 
-        logger.info(log.toString());
-        return chain.filter(exchange);
+        // 请求结束时结束根片段
+        var response = exchange.getResponse();
+        var root = trace.getRoot().setAttribute("http.method", method.name()).setAttribute("http.target", path.value());
+        return result.doFinally(signal -> {
+            var status = response.getStatusCode();
+            root.setAttribute("http.status_code", status == null ? null : status.value()).end();
+        });
     }
 
     /**
-     * 输出请求体
+     * 输出请求体. 请求体在鉴权之前缓存, 超过最大长度(含分块传输)时以413拒绝
      *
      * @param exchange ServerWebExchange
      * @param chain    GatewayFilterChain
      * @param log      日志DTO
+     * @param length   请求头声明的长度, 未声明时为-1
      * @return Mono
      */
-    private Mono<Void> readBody(ServerWebExchange exchange, WebFilterChain chain, LogDto log) {
+    private Mono<Void> readBody(ServerWebExchange exchange, WebFilterChain chain, LogDto log, long length) {
+        var max = maxBufferSize;
+        if (length > max) {
+            logger.info(log.toString());
+            return ResponseHelper.write(exchange, HttpStatus.PAYLOAD_TOO_LARGE, ReplyHelper.fail(log.getRequestId(), "请求数据过大"));
+        }
+
         var originalBody = exchange.getRequest().getBody();
-        return DataBufferUtils.join(originalBody).flatMap(dataBuffer -> {
-            var bytes = new byte[dataBuffer.readableByteCount()];
-            dataBuffer.read(bytes);
-            DataBufferUtils.release(dataBuffer);
-
-            var body = new String(bytes, StandardCharsets.UTF_8).trim();
-            if (body.startsWith("[")) {
-                var list = Json.toList(body, Object.class);
-                log.setBody(list != null ? list : body);
-            } else if (body.startsWith("{")) {
-                Map obj = Json.toMap(body);
-                log.setBody(obj != null ? obj : body);
-            } else {
-                log.setBody(body);
+        return DataBufferUtils.join(originalBody, max).flatMap(dataBuffer -> {
+            if (isSampled()) {
+                var body = dataBuffer.toString(dataBuffer.readPosition(), dataBuffer.readableByteCount(), StandardCharsets.UTF_8).trim();
+                if (body.startsWith("[")) {
+                    var list = Json.toList(body, Object.class);
+                    log.setBody(list != null ? list : body);
+                } else if (body.startsWith("{")) {
+                    Map obj = Json.toMap(body);
+                    log.setBody(obj != null ? obj : body);
+                } else {
+                    log.setBody(body);
+                }
+                log.setBodyLength(body.length());
+                logger.info(log.toString());
             }
-            log.setBodyLength(body.length());
-            logger.info(log.toString());
 
+            // 每次订阅输出缓冲区的副本, 原缓冲区在请求结束后释放
             ServerHttpRequest mutatedRequest = new ServerHttpRequestDecorator(exchange.getRequest()) {
                 @Override
                 public Flux<DataBuffer> getBody() {
-                    return Flux.defer(() -> {
-                        var buffer = exchange.getResponse().bufferFactory().wrap(bytes);
-                        return Flux.just(buffer);
-                    });
+                    return Flux.defer(() -> Flux.just(DataBufferHelper.duplicate(dataBuffer)));
                 }
             };
             var mutatedExchange = exchange.mutate().request(mutatedRequest).build();
-            return chain.filter(mutatedExchange);
+            return chain.filter(mutatedExchange).doFinally(signal -> DataBufferUtils.release(dataBuffer));
+        }).switchIfEmpty(Mono.defer(() -> {
+            // 分块传输的空请求体: 没有缓冲区可合并, 直接继续过滤器链
+            if (isSampled()) {
+                logger.info(log.toString());
+            }
+
+            return chain.filter(exchange);
+        })).onErrorResume(DataBufferLimitException.class, ex -> {
+            if (exchange.getResponse().isCommitted()) {
+                return Mono.error(ex);
+            }
+
+            logger.info(log.toString());
+            return ResponseHelper.write(exchange, HttpStatus.PAYLOAD_TOO_LARGE, ReplyHelper.fail(log.getRequestId(), "请求数据过大"));
         });
     }
 
+    /**
+     * 流式转发请求体: 不合并缓冲区, 背压直接传递到上游, 超过最大长度时中止
+     *
+     * @param exchange ServerWebExchange
+     * @param chain    GatewayFilterChain
+     * @param log      日志DTO
+     * @param length   请求头声明的长度, 未声明时为-1
+     * @return Mono
+     */
+    private Mono<Void> streamBody(ServerWebExchange exchange, WebFilterChain chain, LogDto log, long length) {
+        var max = maxBodySize;
+        if (length >= 0) {
+            log.setBodyLength((int) Math.min(length, Integer.MAX_VALUE));
+        }
+
+        if (isSampled()) {
+            logger.info(log.toString());
+        }
+
+        if (length > max) {
+            return ResponseHelper.write(exchange, HttpStatus.PAYLOAD_TOO_LARGE, ReplyHelper.fail(log.getRequestId(), "请求数据过大"));
+        }
+
+        // 已声明长度的请求体由HTTP编解码器保证长度一致, 仅需对分块传输的请求体计数
+        if (length >= 0) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest mutatedRequest = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                var total = new AtomicLong();
+                return super.getBody().handle((dataBuffer, sink) -> {
+                    if (total.addAndGet(dataBuffer.readableByteCount()) > max) {
+                        DataBufferUtils.release(dataBuffer);
+                        sink.error(new DataBufferLimitException("请求数据超过最大长度: " + max));
+                    } else {
+                        sink.next(dataBuffer);
+                    }
+                });
+            }
+        };
+
+        return chain.filter(exchange.mutate().request(mutatedRequest).build());
+    }
+
     /**
      * 获取过滤器序号
      *
@@ -148,6 +283,72 @@ public class LogFilter implements WebFilter, Ordered {
         return 0;
     }
 
+    /**
+     * 获取请求日志抽样比例
+     *
+     * @return 抽样比例
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 运行时设置请求日志抽样比例, 配置变更时恢复为配置值
+     *
+     * @param sampleRate 抽样比例(0-1)
+     */
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+    }
+
+    /**
+     * 配置变更时重新加载参数
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX) || i.equals(SAMPLE_RATE) || i.equals(MAX_BUFFER_SIZE))) {
+            loadSettings();
+        }
+    }
+
+    /**
+     * 当前请求是否输出日志
+     *
+     * @return 是否输出日志
+     */
+    private boolean isSampled() {
+        var rate = sampleRate;
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * 是否流式转发的路径
+     *
+     * @param path 请求路径
+     * @return 是否流式转发
+     */
+    private boolean isStreaming(String path) {
+        for (var prefix : streamingPaths) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 加载参数
+     */
+    private void loadSettings() {
+        streamingPaths = EnvHelper.getList(env, PREFIX + "paths", "/common/file");
+        maxBodySize = EnvHelper.getLong(env, PREFIX + "maxBodySize", 524288000);
+        maxBufferSize = EnvHelper.getInt(env, MAX_BUFFER_SIZE, 10485760);
+        setSampleRate(EnvHelper.getDouble(env, SAMPLE_RATE, 1));
+    }
+
     /**
      * 获取客户端IP
      *
@@ -0,0 +1,350 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.DataBufferHelper;
+import com.insight.gateway.common.DiscoveryCache;
+import com.insight.gateway.common.EnvHelper;
+import com.insight.gateway.common.GatewayConfig;
+import com.insight.gateway.common.UpstreamClientFactory;
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 流量镜像过滤器, 按路由配置将抽样的请求异步复制到影子服务, 不等待影子服务响应
+ */
+@Component
+public class MirrorFilter implements GlobalFilter, Ordered {
+    private static final String PREFIX = "insight.mirror.";
+    private static final Set<String> SKIP_HEADERS = Set.of(HttpHeaders.HOST.toLowerCase(), HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(), HttpHeaders.CONNECTION.toLowerCase());
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<String, Settings> settings = new ConcurrentHashMap<>();
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+    private final AtomicLong memory = new AtomicLong();
+    private final EnvUtil env;
+    private final MeterRegistry registry;
+    private final DiscoveryCache discoveryCache;
+    private final UpstreamClientFactory clientFactory;
+
+    /**
+     * 构造函数
+     *
+     * @param env            EnvUtil
+     * @param registry       MeterRegistry
+     * @param discoveryCache 服务实例缓存
+     * @param clientFactory  上游服务HttpClient工厂
+     */
+    public MirrorFilter(EnvUtil env, MeterRegistry registry, DiscoveryCache discoveryCache, UpstreamClientFactory clientFactory) {
+        this.env = env;
+        this.registry = registry;
+        this.discoveryCache = discoveryCache;
+        this.clientFactory = clientFactory;
+
+        registry.gauge("gateway.mirror.memory", memory);
+    }
+
+    /**
+     * 流量镜像过滤器. 请求体不超过单个请求上限且总缓存不超过内存预算时才镜像
+     *
+     * @param exchange ServerWebExchange
+     * @param chain    GatewayFilterChain
+     * @return Mono
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        var config = settings.computeIfAbsent(route.getId(), this::loadSettings);
+        var request = exchange.getRequest();
+        if (config.service == null || !config.methods.contains(request.getMethod().name()) || ThreadLocalRandom.current().nextDouble() >= config.ratio) {
+            return chain.filter(exchange);
+        }
+
+        var headers = request.getHeaders();
+        var length = headers.getContentLength();
+        if (length < 0 && headers.containsKey(HttpHeaders.TRANSFER_ENCODING) || length > config.maxBodySize) {
+            registry.counter("gateway.mirror.skipped", "route", route.getId()).increment();
+            return chain.filter(exchange);
+        }
+
+        var size = Math.max(length, 0);
+        if (memory.addAndGet(size) > config.maxMemory) {
+            memory.addAndGet(-size);
+            registry.counter("gateway.mirror.skipped", "route", route.getId()).increment();
+            return chain.filter(exchange);
+        }
+
+        var reservation = new Reservation(size);
+        var comparison = new Comparison(getMeters(route.getId()));
+        if (size == 0) {
+            mirror(exchange, config, comparison, null, reservation);
+            return primary(exchange, chain, comparison);
+        }
+
+        // 主调用每次订阅输出缓冲区的副本, 镜像调用持有增加引用计数的副本, 原缓冲区在主调用结束后释放.
+        // 读取请求体被取消或请求体为空时未发出镜像请求, 在外层释放内存预算
+        return DataBufferUtils.join(request.getBody(), (int) config.maxBodySize).flatMap(dataBuffer -> {
+            mirror(exchange, config, comparison, DataBufferHelper.toByteBuf(dataBuffer), reservation);
+
+            var mutated = new ServerHttpRequestDecorator(request) {
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    return Flux.defer(() -> Flux.just(DataBufferHelper.duplicate(dataBuffer)));
+                }
+            };
+            return primary(exchange.mutate().request(mutated).build(), chain, comparison).doFinally(signal -> DataBufferUtils.release(dataBuffer));
+        }).doFinally(signal -> {
+            if (!reservation.mirrored) {
+                reservation.release();
+            }
+        });
+    }
+
+    /**
+     * 在后端服务调用之前执行, 主调用耗时包含重试
+     *
+     * @return 过滤器序号
+     */
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER - 2;
+    }
+
+    /**
+     * 配置变更时清除路由镜像配置
+     *
+     * @param event EnvironmentChangeEvent
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(i -> i.startsWith(PREFIX))) {
+            settings.clear();
+        }
+    }
+
+    /**
+     * 执行主调用并记录耗时
+     *
+     * @param exchange   ServerWebExchange
+     * @param chain      GatewayFilterChain
+     * @param comparison 耗时对比
+     * @return Mono
+     */
+    private Mono<Void> primary(ServerWebExchange exchange, GatewayFilterChain chain, Comparison comparison) {
+        var start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> comparison.complete(true, System.nanoTime() - start));
+    }
+
+    /**
+     * 异步发送镜像请求, 完成后释放请求体及内存预算
+     *
+     * @param exchange    ServerWebExchange
+     * @param config      镜像配置
+     * @param comparison  耗时对比
+     * @param body        请求体, 无请求体时为null
+     * @param reservation 占用的内存预算
+     */
+    private void mirror(ServerWebExchange exchange, Settings config, Comparison comparison, ByteBuf body, Reservation reservation) {
+        reservation.mirrored = true;
+        var request = exchange.getRequest();
+        var path = request.getURI().getRawPath();
+        var query = request.getURI().getRawQuery();
+        var method = HttpMethod.valueOf(request.getMethod().name());
+        var start = System.nanoTime();
+
+        discoveryCache.getInstances(config.service).flatMap(instances -> {
+            if (instances.isEmpty()) {
+                return Mono.error(new IllegalStateException("影子服务无可用实例: " + config.service));
+            }
+
+            // 连接重试时发送函数可能被多次调用, 每次发送一个增加引用计数的副本, 由Netty写出后释放
+            var instance = instances.get(ThreadLocalRandom.current().nextInt(instances.size()));
+            var uri = instance.getUri() + path + (query == null ? "" : "?" + query);
+            return clientFactory.get(config.service)
+                    .headers(h -> {
+                        request.getHeaders().forEach((name, values) -> {
+                            if (!SKIP_HEADERS.contains(name.toLowerCase())) {
+                                h.add(name, values);
+                            }
+                        });
+                        h.set("X-Mirror", "true");
+                    })
+                    .request(method).uri(uri)
+                    .send((req, out) -> body == null ? out : out.send(Mono.fromSupplier(body::retainedDuplicate)))
+                    .response((response, content) -> content.then(Mono.just(response.status().code())))
+                    .next();
+        }).timeout(config.timeout).doFinally(signal -> {
+            if (body != null) {
+                body.release();
+            }
+
+            reservation.release();
+        }).subscribe(status -> {
+            comparison.complete(false, System.nanoTime() - start);
+            registry.counter("gateway.mirror.requests", "route", comparison.meters.route, "status", String.valueOf(status)).increment();
+        }, ex -> {
+            registry.counter("gateway.mirror.errors", "route", comparison.meters.route).increment();
+            logger.debug("镜像请求失败: {}", ex.getMessage());
+        });
+    }
+
+    /**
+     * 获取路由的耗时监控指标
+     *
+     * @param routeId 路由ID
+     * @return 监控指标
+     */
+    private Meters getMeters(String routeId) {
+        return meters.computeIfAbsent(routeId, k -> new Meters(k, registry));
+    }
+
+    /**
+     * 加载路由的镜像配置, 路由表中的镜像目标及比例可被配置中心覆盖
+     *
+     * @param routeId 路由ID
+     * @return 镜像配置
+     */
+    private Settings loadSettings(String routeId) {
+        var route = GatewayConfig.getRoutes().stream().filter(i -> i.getId().equals(routeId)).findFirst().orElse(null);
+        var key = PREFIX + routeId + ".";
+        var target = EnvHelper.getString(env, key + "target", route == null ? null : route.getMirror());
+        var config = new Settings();
+        config.service = target == null || target.isBlank() ? null : URI.create(target).getHost();
+        config.ratio = EnvHelper.getDouble(env, key + "ratio", route == null ? 0 : route.getMirrorRatio());
+        config.methods = EnvHelper.getList(env, key + "methods", EnvHelper.getString(env, PREFIX + "methods", "GET,HEAD"));
+        config.maxBodySize = EnvHelper.getLong(env, PREFIX + "maxBodySize", 65536);
+        config.maxMemory = EnvHelper.getLong(env, PREFIX + "maxMemory", 16777216);
+        config.timeout = Duration.ofMillis(EnvHelper.getLong(env, PREFIX + "timeout", 10000));
+        return config;
+    }
+
+    /**
+     * 路由镜像配置
+     */
+    private static final class Settings {
+        private String service;
+        private double ratio;
+        private List<String> methods;
+        private long maxBodySize;
+        private long maxMemory;
+        private Duration timeout;
+    }
+
+    /**
+     * 占用的内存预算, 只释放一次
+     */
+    private final class Reservation {
+        private final long size;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * 是否已发出镜像请求(由镜像请求负责释放)
+         */
+        private volatile boolean mirrored;
+
+        private Reservation(long size) {
+            this.size = size;
+        }
+
+        /**
+         * 释放内存预算
+         */
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                memory.addAndGet(-size);
+            }
+        }
+    }
+
+    /**
+     * 路由的耗时监控指标
+     */
+    private static final class Meters {
+        private final String route;
+        private final Timer primary;
+        private final Timer shadow;
+        private final Timer primarySlower;
+        private final Timer shadowSlower;
+
+        private Meters(String route, MeterRegistry registry) {
+            this.route = route;
+            primary = Timer.builder("gateway.mirror.latency").tags("route", route, "target", "primary").register(registry);
+            shadow = Timer.builder("gateway.mirror.latency").tags("route", route, "target", "shadow").register(registry);
+            primarySlower = Timer.builder("gateway.mirror.diff").tags("route", route, "slower", "primary").register(registry);
+            shadowSlower = Timer.builder("gateway.mirror.diff").tags("route", route, "slower", "shadow").register(registry);
+        }
+    }
+
+    /**
+     * 主调用与镜像调用的耗时对比, 两者均完成后记录耗时差
+     */
+    private static final class Comparison {
+        private final Meters meters;
+        private final AtomicInteger completed = new AtomicInteger();
+        private volatile long primaryNanos;
+        private volatile long shadowNanos;
+
+        private Comparison(Meters meters) {
+            this.meters = meters;
+        }
+
+        /**
+         * 记录一方的耗时, 后完成的一方记录耗时差
+         *
+         * @param primary 是否主调用
+         * @param nanos   耗时(纳秒)
+         */
+        private void complete(boolean primary, long nanos) {
+            if (primary) {
+                primaryNanos = nanos;
+                meters.primary.record(nanos, TimeUnit.NANOSECONDS);
+            } else {
+                shadowNanos = nanos;
+                meters.shadow.record(nanos, TimeUnit.NANOSECONDS);
+            }
+
+            if (completed.incrementAndGet() == 2) {
+                var diff = shadowNanos - primaryNanos;
+                var timer = diff > 0 ? meters.shadowSlower : meters.primarySlower;
+                timer.record(Math.abs(diff), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.TraceContext;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 跟踪过滤器, 记录后端服务调用片段并向后端传递traceparent请求头
+ */
+@Component
+public class TraceFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 跟踪过滤器, 重试时每次调用记录一个片段
+     *
+     * @param exchange ServerWebExchange
+     * @param chain    GatewayFilterChain
+     * @return Mono
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        var trace = TraceContext.of(exchange);
+        if (trace == null) {
+            return chain.filter(exchange);
+        }
+
+        var span = trace.startSpan("upstream");
+        if (span.isSampled()) {
+            Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            if (response != null && response.hasServer()) {
+                var instance = response.getServer();
+                span.setAttribute("peer.service", instance.getServiceId())
+                        .setAttribute("server.address", instance.getHost())
+                        .setAttribute("server.port", instance.getPort());
+            }
+        }
+
+        var request = exchange.getRequest().mutate()
+                .header("traceparent", trace.traceparent(span))
+                .build();
+        return chain.filter(exchange.mutate().request(request).build()).doFinally(signal -> {
+            var status = exchange.getResponse().getStatusCode();
+            span.setAttribute("http.status_code", status == null ? null : status.value())
+                    .setAttribute("signal", signal.toString())
+                    .end();
+        });
+    }
+
+    /**
+     * 获取过滤器序号, 须在负载均衡过滤器选定实例之后执行
+     *
+     * @return 过滤器序号
+     */
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 2;
+    }
+}
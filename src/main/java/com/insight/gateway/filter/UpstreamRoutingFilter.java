@@ -0,0 +1,66 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.UpstreamClientFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 上游转发过滤器, lb://路由使用服务独立的连接池转发请求
+ */
+@Component
+public class UpstreamRoutingFilter extends NettyRoutingFilter {
+    private static final String LB_SCHEME = "lb";
+    private final UpstreamClientFactory factory;
+
+    /**
+     * 构造函数
+     *
+     * @param httpClient             网关默认HttpClient
+     * @param headersFiltersProvider 请求头过滤器
+     * @param properties             HttpClientProperties
+     * @param factory                上游服务HttpClient工厂
+     */
+    public UpstreamRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                                 HttpClientProperties properties, UpstreamClientFactory factory) {
+        super(httpClient, headersFiltersProvider, properties);
+        this.factory = factory;
+    }
+
+    /**
+     * 获取转发请求使用的HttpClient
+     *
+     * @param route    路由
+     * @param exchange ServerWebExchange
+     * @return HttpClient
+     */
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        var uri = route.getUri();
+        if (!LB_SCHEME.equals(uri.getScheme()) || uri.getHost() == null) {
+            return super.getHttpClient(route, exchange);
+        }
+
+        return factory.get(uri.getHost());
+    }
+
+    /**
+     * 获取过滤器序号, 先于默认的NettyRoutingFilter执行, 已转发的请求将被默认过滤器跳过
+     *
+     * @return 过滤器序号
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
@@ -11,12 +11,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * @author 宣炳刚
@@ -43,22 +40,11 @@ public class WrapperResponseFilter implements WebFilter, Ordered {
             public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
                 String requestId = exchange.getAttribute("requestId");
                 Boolean logResult = exchange.getAttribute("logResult");
-                if (body instanceof Flux && logResult != null && logResult) {
-                    var fluxBody = Flux.from(body);
-
-                    return super.writeWith(fluxBody.buffer().map(dataBuffers -> {
-                        List<String> list = new ArrayList<>();
-                        dataBuffers.forEach(dataBuffer -> {
-                            var content = new byte[dataBuffer.readableByteCount()];
-                            dataBuffer.read(content);
-                            DataBufferUtils.release(dataBuffer);
-                            list.add(new String(content, StandardCharsets.UTF_8));
-                        });
-
-                        var json = String.join("", list);
+                if (logResult != null && logResult) {
+                    // 合并为一个缓冲区(Netty下为复合缓冲区, 不复制数据)后记录日志, 原缓冲区继续写出
+                    return super.writeWith(DataBufferUtils.join(body).doOnNext(dataBuffer -> {
+                        var json = dataBuffer.toString(dataBuffer.readPosition(), dataBuffer.readableByteCount(), StandardCharsets.UTF_8);
                         logger.info("requestId: {}. 返回数据: {}", requestId, json);
-
-                        return bufferFactory().wrap(json.getBytes());
                     }));
                 }
 
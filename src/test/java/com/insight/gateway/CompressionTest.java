@@ -0,0 +1,122 @@
+package com.insight.gateway;
+
+import io.netty.handler.codec.compression.Brotli;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.reactor.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.HttpHandler;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 响应压缩测试. 以application.yml中的server.compression配置启动Netty服务器, 验证编码协商、最小压缩长度及MIME类型.
+ * 本地库只引入了Linux平台
+ */
+@EnabledOnOs(OS.LINUX)
+public class CompressionTest {
+    private static final String ROW = "{\"id\":\"4bf92f3577b34da6\",\"name\":\"demo\"},";
+    private static WebServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    public static void start() throws IOException {
+        var sources = new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml"));
+        var compression = new Binder(ConfigurationPropertySources.from(sources.get(0))).bind("server.compression", Compression.class).get();
+
+        var factory = new NettyReactiveWebServerFactory(0);
+        factory.setCompression(compression);
+        server = factory.getWebServer(handler());
+        server.start();
+        client = HttpClient.create().baseUrl("http://127.0.0.1:" + server.getPort());
+    }
+
+    @AfterAll
+    public static void stop() {
+        server.stop();
+    }
+
+    /**
+     * 客户端支持br时使用brotli压缩
+     */
+    @Test
+    public void brotliIsNegotiated() {
+        assertTrue(Brotli.isAvailable());
+        assertEquals("br", request("gzip, deflate, br", MediaType.APPLICATION_JSON_VALUE, 100));
+    }
+
+    /**
+     * 客户端不支持br时使用gzip压缩
+     */
+    @Test
+    public void gzipIsUsedWithoutBrotli() {
+        assertEquals("gzip", request("gzip, deflate", MediaType.APPLICATION_JSON_VALUE, 100));
+    }
+
+    /**
+     * 小于最小压缩长度(min-response-size)的响应不压缩
+     */
+    @Test
+    public void smallResponseIsNotCompressed() {
+        assertNull(request("gzip, deflate, br", MediaType.APPLICATION_JSON_VALUE, 10));
+    }
+
+    /**
+     * 不在压缩类型(mime-types)中的响应不压缩
+     */
+    @Test
+    public void unlistedMimeTypeIsNotCompressed() {
+        assertNull(request("gzip, deflate, br", MediaType.APPLICATION_OCTET_STREAM_VALUE, 100));
+    }
+
+    /**
+     * 以指定的Accept-Encoding请求, 获取响应的Content-Encoding
+     *
+     * @param acceptEncoding Accept-Encoding
+     * @param type           响应的Content-Type
+     * @param rows           响应中的数据条数, 约40字节/条
+     * @return Content-Encoding, 未压缩时为null
+     */
+    private String request(String acceptEncoding, String type, int rows) {
+        return client.headers(headers -> headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                .get().uri("/demo/test?type=" + type + "&rows=" + rows)
+                .responseSingle((response, body) -> body.then(Mono.justOrEmpty(response.responseHeaders().get(HttpHeaders.CONTENT_ENCODING))))
+                .block();
+    }
+
+    /**
+     * 按请求参数输出指定类型及长度的响应, 并声明Content-Length
+     *
+     * @return HttpHandler
+     */
+    private static HttpHandler handler() {
+        return (request, response) -> {
+            var params = request.getQueryParams();
+            var rows = Integer.parseInt(params.getFirst("rows"));
+            var data = ("{\"code\":200,\"data\":[" + ROW.repeat(rows) + "{}]}").getBytes(StandardCharsets.UTF_8);
+
+            response.getHeaders().setContentType(MediaType.parseMediaType(params.getFirst("type")));
+            response.getHeaders().setContentLength(data.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(data)));
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.insight.gateway.benchmark;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 响应压缩的CPU开销及压缩率: gzip(级别6)与brotli(质量4), 均为Netty压缩器的默认参数.
+ * 结束时输出各编码的压缩后大小. 运行: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.insight.gateway.benchmark.CompressionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+    private final Encoder.Parameters parameters = new Encoder.Parameters().setQuality(4).setWindow(22);
+
+    /**
+     * 响应中的数据条数, 约40字节/条
+     */
+    @Param({"100", "1600"})
+    private int rows;
+
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Brotli4jLoader.ensureAvailability();
+        var builder = new StringBuilder("{\"code\":200,\"message\":\"请求成功\",\"data\":[");
+        for (var i = 0; i < rows; i++) {
+            builder.append("{\"id\":\"").append(Integer.toHexString(i * 7919)).append("\",\"name\":\"用户").append(i).append("\",\"enabled\":true},");
+        }
+
+        builder.setLength(builder.length() - 1);
+        body = builder.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n原始 %d 字节, gzip %d 字节, br %d 字节%n", body.length, gzip().length, brotli().length);
+    }
+
+    @Benchmark
+    public byte[] gzip() throws IOException {
+        var output = new ByteArrayOutputStream(body.length / 4);
+        try (var gzip = new GZIPOutputStream(output)) {
+            gzip.write(body);
+        }
+
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] brotli() throws IOException {
+        return Encoder.compress(body, parameters);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CompressionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,137 @@
+package com.insight.gateway.benchmark;
+
+import com.insight.gateway.common.GlobalCorsFilter;
+import com.insight.utils.EnvUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 跨域过滤器处理预检请求及非预检请求的开销: 精确匹配、通配子域名匹配及不允许的来源.
+ * 运行: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.insight.gateway.benchmark.CorsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorsBenchmark {
+    private final WebFilterChain chain = exchange -> Mono.empty();
+    private GlobalCorsFilter filter;
+    private MockServerWebExchange exact;
+    private MockServerWebExchange wildcard;
+    private MockServerWebExchange denied;
+
+    @Setup
+    public void setUp() {
+        var env = mock(EnvUtil.class);
+        var settings = Map.of("insight.cors.origins", "https://app.example.com,https://admin.example.com,https://*.example.org");
+        when(env.getValue(anyString())).thenAnswer(i -> settings.get(i.<String>getArgument(0)));
+        filter = new GlobalCorsFilter(env);
+
+        exact = create("https://admin.example.com");
+        wildcard = create("https://shop.example.org");
+        denied = create("https://evil.example.net");
+    }
+
+    @Benchmark
+    public Mono<Void> exact() {
+        return filter.filter(exact, chain);
+    }
+
+    @Benchmark
+    public Mono<Void> wildcard() {
+        return filter.filter(wildcard, chain);
+    }
+
+    @Benchmark
+    public Mono<Void> denied() {
+        return filter.filter(denied, chain);
+    }
+
+    @Benchmark
+    public void preflightExact(Preflight preflight) {
+        filter.filter(preflight.exact, chain).block();
+    }
+
+    @Benchmark
+    public void preflightWildcard(Preflight preflight) {
+        filter.filter(preflight.wildcard, chain).block();
+    }
+
+    @Benchmark
+    public void preflightDenied(Preflight preflight) {
+        filter.filter(preflight.denied, chain).block();
+    }
+
+    /**
+     * 预检请求. 过滤器直接完成响应, 响应提交后不能重复使用, 每次调用前重新创建
+     */
+    @State(Scope.Thread)
+    public static class Preflight {
+        private MockServerWebExchange exact;
+        private MockServerWebExchange wildcard;
+        private MockServerWebExchange denied;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            exact = create(HttpMethod.OPTIONS, "https://admin.example.com");
+            wildcard = create(HttpMethod.OPTIONS, "https://shop.example.org");
+            denied = create(HttpMethod.OPTIONS, "https://evil.example.net");
+        }
+    }
+
+    /**
+     * 创建带有来源的GET请求, 过滤器每次覆盖同名响应头, 可重复使用
+     *
+     * @param origin 来源
+     * @return MockServerWebExchange
+     */
+    private static MockServerWebExchange create(String origin) {
+        return create(HttpMethod.GET, origin);
+    }
+
+    /**
+     * 创建带有来源的请求
+     *
+     * @param method 请求方法
+     * @param origin 来源
+     * @return MockServerWebExchange
+     */
+    private static MockServerWebExchange create(HttpMethod method, String origin) {
+        var request = MockServerHttpRequest.method(method, "/demo/test").header(HttpHeaders.ORIGIN, origin)
+                .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "POST");
+        return MockServerWebExchange.from(request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CorsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
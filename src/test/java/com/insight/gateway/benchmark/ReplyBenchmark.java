@@ -0,0 +1,90 @@
+package com.insight.gateway.benchmark;
+
+import com.insight.gateway.common.ReplyHelper;
+import com.insight.utils.Json;
+import com.insight.utils.pojo.base.Reply;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 网关直接响应的生成开销: 直接使用模板、Reply携带的模板及JSON序列化.
+ * 运行: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.insight.gateway.benchmark.ReplyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplyBenchmark {
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final String requestId = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    /**
+     * 直接使用模板输出(限流及鉴权拒绝)
+     *
+     * @return 响应长度
+     */
+    @Benchmark
+    public int template() {
+        var body = ReplyHelper.SERVICE_BUSY.write(factory, requestId);
+        var length = body.readableByteCount();
+        DataBufferUtils.release(body);
+        return length;
+    }
+
+    /**
+     * 使用Reply携带的模板输出
+     *
+     * @return 响应长度
+     */
+    @Benchmark
+    public int carried() {
+        var reply = ReplyHelper.serviceBusy(requestId);
+        var body = ReplyHelper.getTemplate(reply).write(factory, requestId);
+        var length = body.readableByteCount();
+        DataBufferUtils.release(body);
+        return length;
+    }
+
+    /**
+     * JSON序列化输出(无模板的Reply)
+     *
+     * @return 响应长度
+     */
+    @Benchmark
+    public int json() {
+        var reply = new Reply();
+        reply.setCode(503);
+        reply.setMessage("服务繁忙，请稍后重试！");
+        reply.setOption(requestId);
+
+        var data = Json.toJson(reply).getBytes(StandardCharsets.UTF_8);
+        var body = factory.allocateBuffer(data.length).write(data);
+        var length = body.readableByteCount();
+        DataBufferUtils.release(body);
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReplyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.insight.gateway.benchmark;
+
+import com.insight.gateway.common.AccessToken;
+import com.insight.utils.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 已认证请求的令牌处理开销: 日志过滤器与鉴权各自解码一次(原实现)与每个请求只解码一次, 以及安全码的恒定时间比较.
+ * 运行: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.insight.gateway.benchmark.TokenBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBenchmark {
+    private final byte[] secret = "c2f3a9b1d7e44f0a8b6c5d4e3f2a1b0c".getBytes(StandardCharsets.UTF_8);
+    private final byte[] secretKey = "c2f3a9b1d7e44f0a8b6c5d4e3f2a1b0c".getBytes(StandardCharsets.UTF_8);
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = Json.toBase64(Map.of("id", "4bf92f3577b34da6a3ce929d0e0e4736", "secret", new String(secret, StandardCharsets.UTF_8),
+                "userId", "2564cd559cd340f0b81409723fd8632a", "appId", "9dd99dd9e6df467a8207d05ea5581125"));
+    }
+
+    /**
+     * 原实现: 日志过滤器及鉴权各调用一次Json.toToken
+     *
+     * @param blackhole Blackhole
+     */
+    @Benchmark
+    public void decodeTwice(Blackhole blackhole) {
+        blackhole.consume(Json.toToken(token).getAppId());
+        blackhole.consume(Json.toToken(token).getSecret());
+    }
+
+    /**
+     * 现实现: 令牌保存在exchange属性中, 两处读取共用一次解码(含创建exchange的开销)
+     *
+     * @param blackhole Blackhole
+     */
+    @Benchmark
+    public void decodeOnce(Blackhole blackhole) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/demo/test").header(HttpHeaders.AUTHORIZATION, token));
+        blackhole.consume(AccessToken.of(exchange).getTokenKey().getAppId());
+        blackhole.consume(AccessToken.of(exchange).getTokenKey().getSecret());
+    }
+
+    /**
+     * 创建exchange的开销, 用于从decodeOnce中扣除
+     *
+     * @param blackhole Blackhole
+     */
+    @Benchmark
+    public void exchangeOnly(Blackhole blackhole) {
+        blackhole.consume(MockServerWebExchange.from(MockServerHttpRequest.get("/demo/test").header(HttpHeaders.AUTHORIZATION, token)));
+    }
+
+    /**
+     * 安全码的恒定时间比较
+     *
+     * @return 是否一致
+     */
+    @Benchmark
+    public boolean compareSecret() {
+        return MessageDigest.isEqual(secret, secretKey);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenBenchmark.class.getSimpleName()).build()).run();
+    }
+}
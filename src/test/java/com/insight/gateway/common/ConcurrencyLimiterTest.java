@@ -0,0 +1,130 @@
+package com.insight.gateway.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 自适应并发限制器测试
+ */
+public class ConcurrencyLimiterTest {
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * 在途请求数达到上限时拒绝, 释放后可再次获取
+     */
+    @Test
+    public void rejectsWhenInflightReachesLimit() {
+        var limiter = create(4, 1.0);
+        for (var i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(false));
+        }
+
+        assertFalse(limiter.tryAcquire(false));
+        assertFalse(limiter.tryAcquire(true));
+        assertEquals(4, limiter.getInflight());
+
+        limiter.release(-1, false);
+        assertTrue(limiter.tryAcquire(false));
+    }
+
+    /**
+     * 普通请求只能使用部分并发额度, 关键请求可使用全部额度
+     */
+    @Test
+    public void criticalRequestsUseFullLimit() {
+        var limiter = create(4, 0.5);
+        assertTrue(limiter.tryAcquire(false));
+        assertTrue(limiter.tryAcquire(false));
+        assertFalse(limiter.tryAcquire(false));
+
+        assertTrue(limiter.tryAcquire(true));
+        assertTrue(limiter.tryAcquire(true));
+        assertFalse(limiter.tryAcquire(true));
+    }
+
+    /**
+     * 满负载且延迟不高于基准时扩大并发上限
+     */
+    @Test
+    public void limitGrowsUnderLoadWithStableLatency() {
+        var limiter = create(20, 1.0);
+        for (var round = 0; round < 5; round++) {
+            var acquired = 0;
+            while (limiter.tryAcquire(false)) {
+                acquired++;
+            }
+
+            for (var i = 0; i < acquired; i++) {
+                limiter.release(RTT, false);
+            }
+        }
+
+        assertTrue(limiter.getLimit() > 20, "并发上限: " + limiter.getLimit());
+        assertEquals(0, limiter.getInflight());
+    }
+
+    /**
+     * 请求量不足时不扩大并发上限
+     */
+    @Test
+    public void limitHoldsWhenUnderused() {
+        var limiter = create(20, 1.0);
+        for (var i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire(false));
+            limiter.release(RTT, false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    /**
+     * 延迟超过基准的容忍倍数时缩小并发上限
+     */
+    @Test
+    public void limitShrinksWhenLatencyRises() {
+        var limiter = create(20, 1.0);
+        assertTrue(limiter.tryAcquire(false));
+        limiter.release(RTT, false);
+
+        for (var i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(false));
+            limiter.release(RTT * 10, false);
+        }
+
+        assertTrue(limiter.getLimit() < 20, "并发上限: " + limiter.getLimit());
+    }
+
+    /**
+     * 失败的请求缩小并发上限, 不低于下限
+     */
+    @Test
+    public void limitShrinksOnDropsToMinimum() {
+        var limiter = create(20, 1.0);
+        for (var i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire(false));
+            limiter.release(RTT, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    /**
+     * 创建并发限制器: 下限2, 上限100, 延迟容忍2倍, 平滑系数0.5
+     *
+     * @param initialLimit 初始并发上限
+     * @param normalShare  普通请求可使用的并发比例
+     * @return 并发限制器
+     */
+    private ConcurrencyLimiter create(int initialLimit, double normalShare) {
+        var limiter = new ConcurrencyLimiter("demo", initialLimit);
+        limiter.configure(2, 100, 2.0, 0.5, normalShare);
+        return limiter;
+    }
+}
@@ -0,0 +1,58 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 热点键检测测试
+ */
+public class HotKeyCacheTest {
+
+    /**
+     * String.hashCode相同的键在各行中使用独立的哈希值, 不会互相计数
+     */
+    @Test
+    public void keysWithSameHashCodeAreCountedSeparately() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        var env = mock(EnvUtil.class);
+        var settings = Map.of("insight.hotkey.threshold", "10");
+        when(env.getValue(anyString())).thenAnswer(i -> settings.get(i.<String>getArgument(0)));
+        var registry = new SimpleMeterRegistry();
+        var cache = new HotKeyCache(env, registry);
+        for (var i = 0; i < 20; i++) {
+            cache.getCached("Aa", "Aa");
+        }
+
+        cache.putIfHot("Aa", "Aa", "hot");
+        cache.putIfHot("BB", "BB", "cold");
+
+        assertTrue(cache.getHotKeys().containsKey("Aa"));
+        assertFalse(cache.getHotKeys().containsKey("BB"));
+        assertEquals("hot", cache.getCached("Aa", "Aa"));
+        assertEquals(1, registry.get("gateway.hotkey.count").gauge().value());
+        assertTrue(registry.find("gateway.hotkey.rate").gauges().isEmpty());
+    }
+
+    /**
+     * 同一键在不同种子下的哈希值不同
+     */
+    @Test
+    public void rowsUseIndependentSeeds() {
+        assertNotEquals(HotKeyCache.hash("Config:Interface", 1), HotKeyCache.hash("Config:Interface", 2));
+        assertNotEquals(HotKeyCache.hash("Aa", 1), HotKeyCache.hash("BB", 1));
+    }
+}
@@ -0,0 +1,145 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 峰值EWMA负载均衡模拟测试
+ */
+public class PeakEwmaLoadBalancerTest {
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+    private final ServiceInstance fast1 = new DefaultServiceInstance("fast1", "demo", "10.0.0.1", 8080, false);
+    private final ServiceInstance fast2 = new DefaultServiceInstance("fast2", "demo", "10.0.0.2", 8080, false);
+    private final ServiceInstance slow = new DefaultServiceInstance("slow", "demo", "10.0.0.3", 8080, false);
+    private final ServiceInstance hung = new DefaultServiceInstance("hung", "demo", "10.0.0.4", 8080, false);
+    private final Map<String, String> settings = new HashMap<>();
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        settings.clear();
+        settings.put("insight.lb.initialLatency", "1");
+        registry = new SimpleMeterRegistry();
+    }
+
+    /**
+     * 无响应的实例(调用超时)被摘除后不再分配流量, 慢实例只分到少量流量
+     */
+    @Test
+    public void hungInstanceIsEjectedAndSlowInstanceAvoided() {
+        settings.put("insight.lb.ejectFailures", "1");
+        var stats = createStats();
+        var balancer = createBalancer(stats, List.of(fast1, fast2, slow, hung));
+        var counts = new HashMap<String, Integer>();
+        var hungAfterEjected = 0;
+        for (var i = 0; i < 2000; i++) {
+            var instance = balancer.choose(new DefaultRequest<>()).block().getServer();
+            counts.merge(instance.getInstanceId(), 1, Integer::sum);
+
+            var stat = stats.get(instance);
+            if (hung.equals(instance) && stat.isEjected()) {
+                hungAfterEjected++;
+            }
+
+            stat.start();
+            switch (instance.getInstanceId()) {
+                case "hung" -> stats.complete(stat, TIMEOUT, true);
+                case "slow" -> stats.complete(stat, TimeUnit.MILLISECONDS.toNanos(50), false);
+                default -> stats.complete(stat, TimeUnit.MILLISECONDS.toNanos(5), false);
+            }
+        }
+
+        assertTrue(stats.get(hung).isEjected());
+        assertEquals(0, hungAfterEjected);
+        assertTrue(counts.getOrDefault("hung", 0) <= 1);
+        assertTrue(counts.getOrDefault("slow", 0) < 20, "slow: " + counts.get("slow"));
+        assertTrue(counts.get("fast1") > 500 && counts.get("fast2") > 500);
+    }
+
+    /**
+     * 延迟峰值在实例空闲后衰减
+     */
+    @Test
+    public void latencySpikeDecaysWhenIdle() throws InterruptedException {
+        var decay = TimeUnit.MILLISECONDS.toNanos(5);
+        var stat = new InstanceStats("10.0.0.1:8080", TimeUnit.MILLISECONDS.toNanos(1));
+        stat.start();
+        stat.complete(TIMEOUT, decay);
+        assertTrue(stat.getLatency(decay) > TIMEOUT * 0.5);
+
+        Thread.sleep(100);
+        assertTrue(stat.getLatency(decay) < TIMEOUT * 0.01);
+        assertEquals(0, stat.getCost(decay), TIMEOUT * 0.01);
+    }
+
+    /**
+     * 不在服务实例列表中的实例统计及监控指标被清理
+     */
+    @Test
+    public void removedInstancesArePruned() throws InterruptedException {
+        settings.put("insight.lb.idleTime", "50");
+        var stats = createStats();
+        stats.available(List.of(fast1, slow));
+        assertEquals(2, stats.getStats().size());
+
+        Thread.sleep(100);
+        stats.available(List.of(fast1));
+        stats.prune();
+
+        assertEquals(1, stats.getStats().size());
+        assertTrue(stats.getStats().containsKey("10.0.0.1:8080"));
+        assertNull(registry.find("gateway.lb.latency").tag("instance", "10.0.0.3:8080").gauge());
+        assertFalse(registry.find("gateway.lb.latency").tag("instance", "10.0.0.1:8080").gauges().isEmpty());
+    }
+
+    /**
+     * 创建负载均衡实例统计, 配置从settings读取
+     *
+     * @return 负载均衡实例统计
+     */
+    private LoadBalancerStats createStats() {
+        var env = mock(EnvUtil.class);
+        when(env.getValue(anyString())).thenAnswer(i -> settings.get(i.<String>getArgument(0)));
+        return new LoadBalancerStats(env, registry);
+    }
+
+    /**
+     * 创建负载均衡器
+     *
+     * @param stats     负载均衡实例统计
+     * @param instances 服务实例集合
+     * @return 负载均衡器
+     */
+    @SuppressWarnings("unchecked")
+    private PeakEwmaLoadBalancer createBalancer(LoadBalancerStats stats, List<ServiceInstance> instances) {
+        var supplier = mock(ServiceInstanceListSupplier.class);
+        when(supplier.get(any())).thenReturn(Flux.just(instances));
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(supplier);
+        return new PeakEwmaLoadBalancer("demo", provider, stats);
+    }
+}
@@ -0,0 +1,114 @@
+package com.insight.gateway.common;
+
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 分布式跟踪测试
+ */
+public class TracerTest {
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String TRACEPARENT = "00-" + TRACE_ID + "-00f067aa0ba902b7-01";
+    private final Map<String, String> settings = new HashMap<>();
+
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    public void setUp() {
+        settings.clear();
+        settings.put("insight.trace.exporter", "file");
+        settings.put("insight.trace.file", dir.resolve("trace.jsonl").toString());
+        settings.put("insight.trace.sampleRate", "0");
+        settings.put("insight.trace.trustedSources", "10.0.");
+    }
+
+    /**
+     * 不受信任的调用方不能指定请求ID, 也不能强制采样
+     */
+    @Test
+    public void untrustedTraceparentIsOnlyLinked() {
+        var tracer = createTracer();
+        var trace = tracer.start(TRACEPARENT, new InetSocketAddress("203.0.113.7", 40000));
+
+        assertNotEquals(TRACE_ID, trace.getTraceId());
+        assertFalse(trace.isSampled());
+    }
+
+    /**
+     * 受信任的上一跳沿用传入的跟踪ID及采样标志
+     */
+    @Test
+    public void trustedTraceparentIsContinued() {
+        var tracer = createTracer();
+        var trace = tracer.start(TRACEPARENT, new InetSocketAddress("10.0.3.4", 40000));
+
+        assertEquals(TRACE_ID, trace.getTraceId());
+        assertTrue(trace.isSampled());
+    }
+
+    /**
+     * 不受信任的调用方的跟踪作为关联导出
+     */
+    @Test
+    public void untrustedTraceIsExportedAsLink() throws IOException {
+        settings.put("insight.trace.sampleRate", "1");
+        var tracer = createTracer();
+        tracer.start(TRACEPARENT, null).getRoot().end();
+        tracer.flush();
+
+        var line = Files.readString(dir.resolve("trace.jsonl"));
+        assertTrue(line.contains("\"links\""));
+        assertTrue(line.contains(TRACE_ID));
+    }
+
+    /**
+     * 队列大小变更时不丢弃待导出的片段
+     */
+    @Test
+    public void queueResizeKeepsSpans() throws IOException {
+        settings.put("insight.trace.sampleRate", "1");
+        var tracer = createTracer();
+        tracer.start(null, null).getRoot().end();
+        tracer.start(null, null).getRoot().end();
+
+        settings.put("insight.trace.queueSize", "100");
+        tracer.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("insight.trace.queueSize")));
+        tracer.flush();
+
+        assertEquals(2, Files.readAllLines(dir.resolve("trace.jsonl")).size());
+    }
+
+    /**
+     * 创建Tracer, 配置从settings读取
+     *
+     * @return Tracer
+     */
+    private Tracer createTracer() {
+        var env = mock(EnvUtil.class);
+        when(env.getValue(anyString())).thenAnswer(i -> settings.get(i.<String>getArgument(0)));
+        return new Tracer(env, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,101 @@
+package com.insight.gateway.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 记录所有已分配Netty缓冲区的缓冲区工厂, 用于检查引用计数是否归零
+ */
+public class TrackingBufferFactory extends NettyDataBufferFactory {
+    private final Allocator allocator;
+
+    /**
+     * 构造函数
+     */
+    public TrackingBufferFactory() {
+        this(new Allocator());
+    }
+
+    private TrackingBufferFactory(Allocator allocator) {
+        super(allocator);
+        this.allocator = allocator;
+    }
+
+    /**
+     * 分配缓冲区并写入字符串
+     *
+     * @param data 字符串
+     * @return 缓冲区
+     */
+    public DataBuffer of(String data) {
+        var bytes = data.getBytes(StandardCharsets.UTF_8);
+        return allocateBuffer(bytes.length).write(bytes);
+    }
+
+    /**
+     * 获取已分配的缓冲区数量
+     *
+     * @return 缓冲区数量
+     */
+    public int getAllocated() {
+        return allocator.buffers.size();
+    }
+
+    /**
+     * 断言所有已分配的缓冲区均已释放
+     */
+    public void assertReleased() {
+        assertTrue(getAllocated() > 0, "未分配任何缓冲区");
+        for (var buffer : allocator.buffers) {
+            assertEquals(0, buffer.refCnt(), "缓冲区未释放: " + buffer);
+        }
+    }
+
+    /**
+     * 记录已分配缓冲区的非池化分配器
+     */
+    private static class Allocator extends UnpooledByteBufAllocator {
+        private final List<ByteBuf> buffers = new CopyOnWriteArrayList<>();
+
+        private Allocator() {
+            super(true);
+        }
+
+        @Override
+        protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+            return track(super.newHeapBuffer(initialCapacity, maxCapacity));
+        }
+
+        @Override
+        protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+            return track(super.newDirectBuffer(initialCapacity, maxCapacity));
+        }
+
+        @Override
+        public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
+            return track(super.compositeHeapBuffer(maxNumComponents));
+        }
+
+        @Override
+        public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
+            return track(super.compositeDirectBuffer(maxNumComponents));
+        }
+
+        private <T extends ByteBuf> T track(T buffer) {
+            buffers.add(buffer);
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.LoadBalancerStats;
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 服务实例调用统计过滤器测试
+ */
+public class InstanceStatsFilterTest {
+    private final ServiceInstance instance = new DefaultServiceInstance("hung", "demo", "10.0.0.4", 8080, false);
+
+    /**
+     * 已发出上游请求后因熔断过滤器超时而取消的调用计为失败, 连续失败后实例被摘除
+     */
+    @Test
+    public void timeoutAfterRoutingCountsAsFailure() {
+        var stats = new LoadBalancerStats(mock(EnvUtil.class), new SimpleMeterRegistry());
+        var filter = new InstanceStatsFilter(stats);
+        for (var i = 0; i < 5; i++) {
+            var exchange = createExchange();
+            var timer = Mono.delay(Duration.ofMillis(20)).doOnNext(t -> exchange.getAttributes().put(CircuitBreakerFilter.TIMEOUT_ATTR, true));
+            filter.filter(exchange, ex -> {
+                ServerWebExchangeUtils.setAlreadyRouted(ex);
+                return Mono.never();
+            }).timeout(timer).onErrorResume(TimeoutException.class, ex -> Mono.empty()).block();
+        }
+
+        var stat = stats.get(instance);
+        assertTrue(stat.isEjected());
+        assertEquals(0, stat.getInflight());
+        assertTrue(stat.getLatency() >= Duration.ofMillis(20).toNanos());
+    }
+
+    /**
+     * 已发出上游请求后下游取消(如客户端断开)不采样, 实例不被摘除
+     */
+    @Test
+    public void downstreamCancelIsNotSampled() {
+        var stats = new LoadBalancerStats(mock(EnvUtil.class), new SimpleMeterRegistry());
+        var filter = new InstanceStatsFilter(stats);
+        var latency = stats.get(instance).getLatency();
+        for (var i = 0; i < 5; i++) {
+            filter.filter(createExchange(), ex -> {
+                ServerWebExchangeUtils.setAlreadyRouted(ex);
+                return Mono.never();
+            }).subscribe().dispose();
+        }
+
+        var stat = stats.get(instance);
+        assertFalse(stat.isEjected());
+        assertEquals(0, stat.getInflight());
+        assertEquals(latency, stat.getLatency());
+    }
+
+    /**
+     * 未发出上游请求时的取消不采样
+     */
+    @Test
+    public void cancelBeforeRoutingIsNotSampled() {
+        var stats = new LoadBalancerStats(mock(EnvUtil.class), new SimpleMeterRegistry());
+        var filter = new InstanceStatsFilter(stats);
+        for (var i = 0; i < 5; i++) {
+            filter.filter(createExchange(), ex -> Mono.never())
+                    .timeout(Duration.ofMillis(20)).onErrorResume(TimeoutException.class, ex -> Mono.empty()).block();
+        }
+
+        var stat = stats.get(instance);
+        assertFalse(stat.isEjected());
+        assertEquals(0, stat.getInflight());
+    }
+
+    /**
+     * 创建已选定服务实例的请求
+     *
+     * @return MockServerWebExchange
+     */
+    private MockServerWebExchange createExchange() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/demo/test"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+        return exchange;
+    }
+}
@@ -0,0 +1,189 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.InvalidTokenCache;
+import com.insight.gateway.common.Tracer;
+import com.insight.gateway.common.TrackingBufferFactory;
+import com.insight.utils.EnvUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 请求日志过滤器缓存请求体的引用计数测试
+ */
+public class LogFilterBufferTest {
+    private final Map<String, String> settings = new HashMap<>();
+    private TrackingBufferFactory factory;
+    private LogFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        settings.clear();
+        factory = new TrackingBufferFactory();
+        filter = createFilter();
+    }
+
+    /**
+     * 正常完成: 下游读取的副本及缓存的请求体均被释放
+     */
+    @Test
+    public void releasedOnComplete() {
+        var exchange = createExchange(Flux.just(factory.of("{\"id\":"), factory.of("1}")), 7);
+        filter.filter(exchange, this::consume).block();
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 下游处理出错: 缓存的请求体被释放
+     */
+    @Test
+    public void releasedOnError() {
+        var exchange = createExchange(Flux.just(factory.of("{\"id\":"), factory.of("1}")), 7);
+        var result = filter.filter(exchange, ex -> consume(ex).then(Mono.error(new IllegalStateException("upstream"))));
+        assertThrows(IllegalStateException.class, result::block);
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 读取请求体时出错: 已读取的缓冲区被释放
+     */
+    @Test
+    public void releasedOnBodyError() {
+        var body = Flux.concat(Flux.just(factory.of("{\"id\":")), Flux.<DataBuffer>error(new IllegalStateException("reset")));
+        var result = filter.filter(createExchange(body, 7), this::consume);
+        assertThrows(IllegalStateException.class, result::block);
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 下游未读取请求体时取消(如客户端断开): 缓存的请求体被释放
+     */
+    @Test
+    public void releasedOnCancel() {
+        var exchange = createExchange(Flux.just(factory.of("{\"id\":"), factory.of("1}")), 7);
+        filter.filter(exchange, ex -> Mono.never()).subscribe().dispose();
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 合并请求体时取消: 已读取的缓冲区被释放
+     */
+    @Test
+    public void releasedOnCancelWhileReading() {
+        var body = Flux.concat(Flux.just(factory.of("{\"id\":")), Flux.<DataBuffer>never());
+        filter.filter(createExchange(body, 7), this::consume).subscribe().dispose();
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 重新订阅(熔断过滤器重试): 每次订阅得到独立的副本, 均被释放
+     */
+    @Test
+    public void releasedOnResubscribe() {
+        var exchange = createExchange(Flux.just(factory.of("{\"id\":"), factory.of("1}")), 7);
+        var attempts = new AtomicInteger();
+        filter.filter(exchange, ex -> Mono.defer(() -> {
+            var failed = attempts.incrementAndGet() < 3;
+            return consume(ex).then(failed ? Mono.error(new IllegalStateException("retry")) : Mono.empty());
+        }).retry(2)).block();
+
+        assertEquals(3, attempts.get());
+        factory.assertReleased();
+    }
+
+    /**
+     * 分块传输的请求体超过最大长度: 以413拒绝, 已读取的缓冲区被释放
+     */
+    @Test
+    public void releasedWhenChunkedBodyTooLarge() {
+        settings.put("insight.log.maxBodySize", "8");
+        filter = createFilter();
+        var exchange = createExchange(Flux.just(factory.of("{\"id\":"), factory.of("12345}")), -1);
+        filter.filter(exchange, this::consume).block();
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exchange.getResponse().getStatusCode());
+        factory.assertReleased();
+    }
+
+    /**
+     * 分块传输的空请求体: 继续执行过滤器链, 不分配缓冲区
+     */
+    @Test
+    public void releasedOnEmptyChunkedBody() {
+        var exchange = createExchange(Flux.empty(), -1);
+        var called = new AtomicInteger();
+        filter.filter(exchange, ex -> {
+            called.incrementAndGet();
+            return consume(ex);
+        }).block();
+
+        assertEquals(1, called.get());
+        assertEquals(0, factory.getAllocated());
+    }
+
+    /**
+     * 模拟上游转发: 读取并释放请求体
+     *
+     * @param exchange ServerWebExchange
+     * @return Mono
+     */
+    private Mono<Void> consume(ServerWebExchange exchange) {
+        return exchange.getRequest().getBody().doOnNext(DataBufferUtils::release).then();
+    }
+
+    /**
+     * 创建请求日志过滤器, 配置从settings读取
+     *
+     * @return 请求日志过滤器
+     */
+    private LogFilter createFilter() {
+        var env = mock(EnvUtil.class);
+        when(env.getValue(anyString())).thenAnswer(i -> settings.get(i.<String>getArgument(0)));
+        var registry = new SimpleMeterRegistry();
+        return new LogFilter(env, new Tracer(env, registry), new InvalidTokenCache(env, registry));
+    }
+
+    /**
+     * 创建携带请求体的请求
+     *
+     * @param body   请求体
+     * @param length 请求体长度, 为-1时使用分块传输
+     * @return MockServerWebExchange
+     */
+    private MockServerWebExchange createExchange(Flux<DataBuffer> body, long length) {
+        var builder = MockServerHttpRequest.post("/demo/test").header("X-Real-IP", "10.0.0.1");
+        if (length < 0) {
+            builder.header(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        } else {
+            builder.contentLength(length);
+        }
+
+        return MockServerWebExchange.from(builder.body(body));
+    }
+}
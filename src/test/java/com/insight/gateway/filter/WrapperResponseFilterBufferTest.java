@@ -0,0 +1,145 @@
+package com.insight.gateway.filter;
+
+import com.insight.gateway.common.ReplyHelper;
+import com.insight.gateway.common.ResponseHelper;
+import com.insight.gateway.common.TrackingBufferFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author 宣炳刚
+ * @date 2026/10/19
+ * @remark 响应消息输出过滤器及响应帮助类的引用计数测试
+ */
+public class WrapperResponseFilterBufferTest {
+    private final WrapperResponseFilter filter = new WrapperResponseFilter();
+    private TrackingBufferFactory factory;
+    private MockServerHttpResponse response;
+    private ServerWebExchange exchange;
+
+    @BeforeEach
+    public void setUp() {
+        factory = new TrackingBufferFactory();
+        response = new MockServerHttpResponse(factory);
+
+        // 模拟服务器: 写出后释放缓冲区
+        response.setWriteHandler(body -> body.doOnNext(DataBufferUtils::release).then());
+        exchange = new DefaultServerWebExchange(MockServerHttpRequest.get("/demo/test").build(), response,
+                new DefaultWebSessionManager(), ServerCodecConfigurer.create(), new AcceptHeaderLocaleContextResolver());
+        exchange.getAttributes().put("requestId", "test");
+        exchange.getAttributes().put("logResult", true);
+    }
+
+    /**
+     * 正常完成: 合并后的缓冲区及原缓冲区均被释放
+     */
+    @Test
+    public void releasedOnComplete() {
+        filter.filter(exchange, ex -> ex.getResponse().writeWith(Flux.just(factory.of("{\"id\":"), factory.of("1}")))).block();
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 上游响应体出错: 已读取的缓冲区被释放
+     */
+    @Test
+    public void releasedOnError() {
+        var body = Flux.concat(Flux.just(factory.of("{\"id\":")), Flux.<DataBuffer>error(new IllegalStateException("reset")));
+        var result = filter.filter(exchange, ex -> ex.getResponse().writeWith(body));
+        assertThrows(IllegalStateException.class, result::block);
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 服务器写出失败: 合并后的缓冲区被释放
+     */
+    @Test
+    public void releasedOnWriteError() {
+        response.setWriteHandler(body -> Mono.error(new IllegalStateException("closed")));
+        var result = filter.filter(exchange, ex -> ex.getResponse().writeWith(Flux.just(factory.of("{\"id\":"), factory.of("1}"))));
+        assertThrows(IllegalStateException.class, result::block);
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 读取响应体时取消(如客户端断开): 已读取的缓冲区被释放
+     */
+    @Test
+    public void releasedOnCancel() {
+        var body = Flux.concat(Flux.just(factory.of("{\"id\":")), Flux.<DataBuffer>never());
+        filter.filter(exchange, ex -> ex.getResponse().writeWith(body)).subscribe().dispose();
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 重新订阅(熔断过滤器重试): 失败的请求未写出响应, 重试成功后写出的缓冲区被释放
+     */
+    @Test
+    public void releasedOnResubscribe() {
+        var attempts = new AtomicInteger();
+        filter.filter(exchange, ex -> Mono.defer(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                return Mono.error(new IllegalStateException("retry"));
+            }
+
+            return ex.getResponse().writeWith(Flux.just(factory.of("{\"id\":"), factory.of("1}")));
+        }).retry(2)).block();
+
+        assertEquals(3, attempts.get());
+        factory.assertReleased();
+    }
+
+    /**
+     * 输出Reply数据: 写出后释放
+     */
+    @Test
+    public void replyReleasedOnComplete() {
+        ResponseHelper.write(exchange, HttpStatus.GATEWAY_TIMEOUT, ReplyHelper.timeout("test", "demo")).block();
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, response.getStatusCode());
+        factory.assertReleased();
+    }
+
+    /**
+     * 输出Reply数据时服务器写出失败: 缓冲区被释放
+     */
+    @Test
+    public void replyReleasedOnWriteError() {
+        response.setWriteHandler(body -> Mono.error(new IllegalStateException("closed")));
+        var result = ResponseHelper.write(exchange, ReplyHelper.serviceBusy("test"));
+        assertThrows(IllegalStateException.class, result::block);
+
+        factory.assertReleased();
+    }
+
+    /**
+     * 未订阅的Reply输出不分配缓冲区
+     */
+    @Test
+    public void replyNotAllocatedUntilSubscribed() {
+        ResponseHelper.write(exchange, ReplyHelper.serviceBusy("test"));
+
+        assertEquals(0, factory.getAllocated());
+    }
+}